@@ -0,0 +1,77 @@
+package com.org.promoquoter.bench;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.BuyXGetYRule;
+import com.org.promoquoter.promo.CartLine;
+import com.org.promoquoter.promo.PercentOffCategoryRule;
+import com.org.promoquoter.promo.PromotionDef;
+import com.org.promoquoter.promo.PromotionPipeline;
+
+/**
+ * Deterministic synthetic catalog shared by the benchmarks:
+ * - PRODUCTS product ids spread over CATEGORIES categories.
+ * - Promotions are an even mix of PERCENT_OFF_CATEGORY and BUY_X_GET_Y.
+ */
+final class BenchFixtures {
+
+  static final int PRODUCTS = 10_000;
+  static final int CATEGORIES = 500;
+
+  private BenchFixtures() {}
+
+  record LineSpec(long productId, String category, int qty, BigDecimal unitPrice) {}
+
+  static PromotionPipeline pipeline() {
+    return pipeline(0);
+  }
+
+  static PromotionPipeline pipeline(int parallelThreshold) {
+    return new PromotionPipeline(List.of(new PercentOffCategoryRule(), new BuyXGetYRule()), parallelThreshold);
+  }
+
+  static String category(long productId) {
+    return "CAT" + (productId % CATEGORIES);
+  }
+
+  static BigDecimal price(long productId) {
+    return BigDecimal.valueOf(100 + (productId * 7919) % 99_900, 2);
+  }
+
+  static List<PromotionDef> promotions(int count, long seed) {
+    var rnd = new SplittableRandom(seed);
+    List<PromotionDef> defs = new ArrayList<>(count);
+    for (long id = 1; id <= count; id++) {
+      int priority = rnd.nextInt(100);
+      defs.add(id % 2 == 0
+        ? new PromotionDef(id, PromotionType.PERCENT_OFF_CATEGORY, "P" + id, priority, true,
+            "CAT" + rnd.nextInt(CATEGORIES), BigDecimal.valueOf(1 + rnd.nextInt(30)), null, null, null)
+        : new PromotionDef(id, PromotionType.BUY_X_GET_Y, "B" + id, priority, true,
+            null, null, 1L + rnd.nextInt(PRODUCTS), 1 + rnd.nextInt(3), 1));
+    }
+    return defs;
+  }
+
+  static List<LineSpec> cart(int size, long seed) {
+    var rnd = new SplittableRandom(seed);
+    List<LineSpec> specs = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      long pid = 1L + rnd.nextInt(PRODUCTS);
+      specs.add(new LineSpec(pid, category(pid), 1 + rnd.nextInt(10), price(pid)));
+    }
+    return specs;
+  }
+
+  /** Fresh, undiscounted lines for one evaluation (CartLine is mutable). */
+  static List<CartLine> lines(List<LineSpec> specs) {
+    List<CartLine> lines = new ArrayList<>(specs.size());
+    for (var s : specs) {
+      lines.add(new CartLine(s.productId(), "Item" + s.productId(), s.category(), s.qty(), s.unitPrice()));
+    }
+    return lines;
+  }
+}
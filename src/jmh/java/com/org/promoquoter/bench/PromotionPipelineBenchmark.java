@@ -0,0 +1,64 @@
+package com.org.promoquoter.bench;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.org.promoquoter.bench.BenchFixtures.LineSpec;
+import com.org.promoquoter.promo.CartContext;
+import com.org.promoquoter.promo.PromotionPipeline;
+import com.org.promoquoter.promo.PromotionSnapshot;
+
+/**
+ * PromotionPipeline.run across cart sizes and catalog sizes.
+ * Each invocation prices a fresh CartContext against a pre-compiled snapshot,
+ * sequentially or partitioned into non-conflicting groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionPipelineBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  int cartSize;
+
+  @Param({"10", "1000", "50000"})
+  int promoCount;
+
+  // 0 = sequential; 1 = partitioned whenever the candidates split into more than one group
+  @Param({"0", "1"})
+  int parallelThreshold;
+
+  private PromotionPipeline pipeline;
+  private PromotionSnapshot snapshot;
+  private List<LineSpec> cart;
+
+  @Setup
+  public void setUp() {
+    pipeline = BenchFixtures.pipeline(parallelThreshold);
+    snapshot = pipeline.compile(1L, BenchFixtures.promotions(promoCount, 1L));
+    cart = BenchFixtures.cart(cartSize, 2L);
+  }
+
+  @Benchmark
+  public BigDecimal run() {
+    var ctx = new CartContext(BenchFixtures.lines(cart));
+    pipeline.run(ctx, snapshot);
+    return ctx.total();
+  }
+}
@@ -0,0 +1,69 @@
+package com.org.promoquoter.bench;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.org.promoquoter.bench.BenchFixtures.LineSpec;
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.BuyXGetYRule;
+import com.org.promoquoter.promo.CartContext;
+import com.org.promoquoter.promo.PercentOffCategoryRule;
+import com.org.promoquoter.promo.PromotionDef;
+import com.org.promoquoter.promo.PromotionResult;
+
+/**
+ * The two built-in rules in isolation: one def applied to a fresh cart whose
+ * lines all match (same category / same product).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionRuleBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  int cartSize;
+
+  private final PercentOffCategoryRule percentRule = new PercentOffCategoryRule();
+  private final BuyXGetYRule bogoRule = new BuyXGetYRule();
+
+  private List<LineSpec> cart;
+  private PromotionDef percentDef;
+  private PromotionDef bogoDef;
+
+  @Setup
+  public void setUp() {
+    cart = BenchFixtures.cart(cartSize, 3L).stream()
+      .map(s -> new LineSpec(s.productId(), "CAT0", s.qty() + 1, s.unitPrice()))
+      .toList();
+    percentDef = new PromotionDef(1L, PromotionType.PERCENT_OFF_CATEGORY, "Cat 12.5%", 1, true,
+      "CAT0", new BigDecimal("12.5"), null, null, null);
+    bogoDef = new PromotionDef(2L, PromotionType.BUY_X_GET_Y, "B1G1", 1, true,
+      null, null, cart.get(0).productId(), 1, 1);
+  }
+
+  @Benchmark
+  public PromotionResult percentOffCategory() {
+    return percentRule.apply(new CartContext(BenchFixtures.lines(cart)), percentDef);
+  }
+
+  @Benchmark
+  public PromotionResult buyXGetY() {
+    return bogoRule.apply(new CartContext(BenchFixtures.lines(cart)), bogoDef);
+  }
+}
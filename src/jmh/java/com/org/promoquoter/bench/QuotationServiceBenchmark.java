@@ -0,0 +1,103 @@
+package com.org.promoquoter.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.org.promoquoter.PromoquoterApplication;
+import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.QuoteRequest;
+import com.org.promoquoter.dto.cart.QuoteResponse;
+import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.entities.Promotion;
+import com.org.promoquoter.promo.PromotionCatalog;
+import com.org.promoquoter.repositories.ProductRepository;
+import com.org.promoquoter.repositories.PromotionRepository;
+import com.org.promoquoter.services.QuotationService;
+
+/**
+ * End-to-end QuotationService.quote against an in-memory H2 database
+ * (product load + promotion pipeline + response mapping), without the web layer.
+ * Every invocation quotes the same cart, so the quote cache is off by default; with -p quoteCache=true
+ * every invocation after the first is a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuotationServiceBenchmark {
+
+  @Param({"1", "10", "100"})
+  int cartSize;
+
+  @Param({"10", "1000"})
+  int promoCount;
+
+  @Param({"false"})
+  boolean quoteCache;
+
+  private ConfigurableApplicationContext app;
+  private QuotationService quotationService;
+  private QuoteRequest request;
+
+  @Setup
+  public void setUp() {
+    app = new SpringApplicationBuilder(PromoquoterApplication.class)
+      .web(WebApplicationType.NONE)
+      .properties(
+        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.h2.console.enabled=false",
+        "promoquoter.quote-cache.enabled=" + quoteCache,
+        "logging.level.root=WARN")
+      .run();
+
+    var products = app.getBean(ProductRepository.class);
+    var promotions = app.getBean(PromotionRepository.class);
+
+    List<Product> saved = products.saveAll(BenchFixtures.cart(cartSize, 4L).stream()
+      .map(s -> Product.builder().name("Item" + s.productId()).category(s.category())
+        .price(s.unitPrice()).stock(1_000_000).build())
+      .toList());
+
+    promotions.saveAll(BenchFixtures.promotions(promoCount, 5L).stream()
+      .map(d -> Promotion.builder().type(d.type()).name(d.name()).priority(d.priority()).enabled(true)
+        .category(d.category()).percent(d.percent())
+        .productId(d.productId() == null ? null : saved.get((int) (d.productId() % saved.size())).getId())
+        .buyQty(d.buyQty()).freeQty(d.freeQty()).build())
+      .toList());
+    app.getBean(PromotionCatalog.class).refresh();
+
+    List<CartItem> items = new ArrayList<>();
+    for (var p : saved) items.add(new CartItem(p.getId(), 3));
+    request = new QuoteRequest(items, "REGULAR");
+    quotationService = app.getBean(QuotationService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    app.close();
+  }
+
+  @Benchmark
+  public QuoteResponse quote() {
+    return quotationService.quote(request);
+  }
+}
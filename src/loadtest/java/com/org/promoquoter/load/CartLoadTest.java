@@ -0,0 +1,128 @@
+package com.org.promoquoter.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Closed-loop load test for POST /cart/quote against a running instance.
+ * For each concurrency level, that many clients each keep exactly one request in flight (one connection
+ * per client) for the measurement window; reports throughput, errors and latency percentiles.
+ *
+ * Usage: CartLoadTest [baseUrl=http://localhost:9003] [concurrency=1000,5000] [seconds=20]
+ * Run it once against the app started with spring.threads.virtual.enabled=false and once with true.
+ * 5k connections need a raised open-files limit (ulimit -n) on both sides.
+ */
+public final class CartLoadTest {
+
+  private static final int MAX_LATENCY_MS = 60_000;
+
+  private CartLoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    var base = args.length > 0 ? args[0] : "http://localhost:9003";
+    var levels = (args.length > 1 ? args[1] : "1000,5000").split(",");
+    var seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+    var om = new ObjectMapper();
+    var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+    var body = om.writeValueAsString(cart(client, om, base));
+    var quote = HttpRequest.newBuilder(URI.create(base + "/cart/quote"))
+        .timeout(Duration.ofSeconds(60))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+
+    System.out.printf("%-12s %12s %10s %10s %10s %10s%n", "concurrency", "req/s", "errors", "p50 ms", "p99 ms", "max ms");
+    for (var level : levels) {
+      int concurrency = Integer.parseInt(level.trim());
+      run(client, quote, concurrency, Duration.ofSeconds(Math.max(1, seconds / 4))); // warm-up, discarded
+      var r = run(client, quote, concurrency, Duration.ofSeconds(seconds));
+      System.out.printf("%-12d %12.0f %10d %10d %10d %10d%n",
+          concurrency, r.ok() / (double) seconds, r.errors(), r.percentile(0.50), r.percentile(0.99), r.max());
+    }
+  }
+
+  // Seeds two products and returns a quote request for them
+  private static Object cart(HttpClient client, ObjectMapper om, String base) throws Exception {
+    var seed = """
+        {"products":[
+          {"name":"Load Mug","category":"HOME","price":4.50,"stock":1000000},
+          {"name":"Load Book","category":"BOOKS","price":12.00,"stock":1000000}]}
+        """;
+    var res = client.send(HttpRequest.newBuilder(URI.create(base + "/products"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(seed))
+        .build(), HttpResponse.BodyHandlers.ofString());
+    if (res.statusCode() != 200) throw new IllegalStateException("Seeding failed: " + res.statusCode() + " " + res.body());
+    var ids = new ArrayList<Long>();
+    om.readTree(res.body()).forEach(p -> ids.add(p.get("id").asLong()));
+    return Map.of(
+        "items", List.of(Map.of("productId", ids.get(0), "qty", 2), Map.of("productId", ids.get(1), "qty", 1)),
+        "customerSegment", "REGULAR");
+  }
+
+  private record Result(long ok, long errors, AtomicLongArray histogram) {
+    long percentile(double p) {
+      long total = 0;
+      for (int i = 0; i < histogram.length(); i++) total += histogram.get(i);
+      long rank = (long) Math.ceil(total * p);
+      long seen = 0;
+      for (int i = 0; i < histogram.length(); i++) {
+        seen += histogram.get(i);
+        if (seen >= rank && seen > 0) return i;
+      }
+      return 0;
+    }
+
+    long max() {
+      for (int i = histogram.length() - 1; i >= 0; i--) if (histogram.get(i) > 0) return i;
+      return 0;
+    }
+  }
+
+  private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration window) {
+    var ok = new LongAdder();
+    var errors = new LongAdder();
+    var histogram = new AtomicLongArray(MAX_LATENCY_MS + 1);
+    long deadline = System.nanoTime() + window.toNanos();
+
+    List<CompletableFuture<Void>> clients = new ArrayList<>(concurrency);
+    for (int c = 0; c < concurrency; c++) {
+      var done = new CompletableFuture<Void>();
+      loop(client, request, deadline, ok, errors, histogram, done);
+      clients.add(done);
+    }
+    CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+    return new Result(ok.sum(), errors.sum(), histogram);
+  }
+
+  private static void loop(HttpClient client, HttpRequest request, long deadline, LongAdder ok, LongAdder errors,
+                           AtomicLongArray histogram, CompletableFuture<Void> done) {
+    if (System.nanoTime() >= deadline) {
+      done.complete(null);
+      return;
+    }
+    long start = System.nanoTime();
+    client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((res, ex) -> {
+      long ms = Math.min(MAX_LATENCY_MS, (System.nanoTime() - start) / 1_000_000);
+      if (ex == null && res.statusCode() == 200) {
+        ok.increment();
+        histogram.incrementAndGet((int) ms);
+      } else {
+        errors.increment();
+      }
+      loop(client, request, deadline, ok, errors, histogram, done);
+    });
+  }
+}
@@ -0,0 +1,74 @@
+package com.org.promoquoter.catalog;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.repositories.ProductRepository;
+
+/**
+ * Read-through near-cache of ProductView keyed by product id:
+ * - Bounded (W-TinyLFU eviction) with a write TTL.
+ * - Misses are loaded with a single findAllById.
+ * - Puts are version-aware: of two concurrent loads, a view read from an older @Version never replaces a newer one.
+ * - Nothing re-reads @Version on a hit, so a price or category changed outside this service stays cached for up
+ *   to the TTL. Quotes can be that stale; confirm cannot: it checks the committed price and category and
+ *   invalidates the entries it finds repriced.
+ * - Stock reservations bump @Version but change nothing the view holds, so they do not invalidate it.
+ */
+@Component
+public class ProductCatalog {
+
+  private final ProductRepository productRepo;
+  private final Cache<Long, ProductView> cache;
+
+  public ProductCatalog(ProductRepository productRepo,
+                        @Value("${promoquoter.product-cache.max-size:100000}") long maxSize,
+                        @Value("${promoquoter.product-cache.ttl:PT10M}") Duration ttl) {
+    this.productRepo = productRepo;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns views for the ids that exist; unknown ids are simply absent from the map.
+   */
+  public Map<Long, ProductView> getAll(Collection<Long> ids) {
+    var distinct = new LinkedHashSet<>(ids);
+    Map<Long, ProductView> found = new HashMap<>(cache.getAllPresent(distinct));
+    if (found.size() < distinct.size()) {
+      distinct.removeAll(found.keySet());
+      for (var p : productRepo.findAllById(distinct)) {
+        found.put(p.getId(), observe(p));
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Records a freshly read row; returns the view now cached for its id.
+   */
+  public ProductView observe(Product product) {
+    return cache.asMap().merge(product.getId(), ProductView.from(product),
+        (cached, fresh) -> fresh.isNewerOrSame(cached) ? fresh : cached);
+  }
+
+  public void invalidate(Iterable<Long> ids) {
+    cache.invalidateAll(ids);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+}
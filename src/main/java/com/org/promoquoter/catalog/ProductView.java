@@ -0,0 +1,30 @@
+package com.org.promoquoter.catalog;
+
+import java.math.BigDecimal;
+
+import com.org.promoquoter.entities.Product;
+
+/**
+ * Immutable pricing view of a Product (no stock: stock stays authoritative in the database).
+ */
+public record ProductView(
+  Long id,
+  String name,
+  String category,
+  BigDecimal price,
+  Long version
+) {
+
+  public static ProductView from(Product p) {
+    return new ProductView(p.getId(), p.getName(), p.getCategory(), p.getPrice(), p.getVersion());
+  }
+
+  /** True when this view was read from a newer (or the same) row version than other. */
+  public boolean isNewerOrSame(ProductView other) {
+    return versionOrZero(version) >= versionOrZero(other.version);
+  }
+
+  private static long versionOrZero(Long v) {
+    return v == null ? 0L : v;
+  }
+}
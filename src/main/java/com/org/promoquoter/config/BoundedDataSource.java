@@ -0,0 +1,97 @@
+package com.org.promoquoter.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource that admits at most {@code permits} open connections at a time:
+ * - Callers queue on a fair Semaphore (FIFO) and give up after acquireTimeout with an SQLTransientConnectionException.
+ * - The permit is held until the returned connection is closed, i.e. for the lifetime of the transaction.
+ * With virtual threads there is no request thread pool to cap concurrency any more; this keeps thousands of
+ * parked requests queued in front of the pool instead of inside it.
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+
+  private final Semaphore permits;
+  private final long acquireTimeoutNanos;
+
+  public BoundedDataSource(DataSource target, int permits, Duration acquireTimeout) {
+    super(target);
+    this.permits = new Semaphore(permits, true);
+    this.acquireTimeoutNanos = acquireTimeout.toNanos();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    return admitted(() -> obtainTargetDataSource().getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    return admitted(() -> obtainTargetDataSource().getConnection(username, password));
+  }
+
+  public int availablePermits() {
+    return permits.availablePermits();
+  }
+
+  private void acquire() throws SQLException {
+    try {
+      if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new SQLTransientConnectionException("Timed out waiting for a database permit");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a database permit", ex);
+    }
+  }
+
+  private interface ConnectionSupplier {
+    Connection get() throws SQLException;
+  }
+
+  private Connection admitted(ConnectionSupplier supplier) throws SQLException {
+    Connection target;
+    try {
+      target = supplier.get();
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+    var released = new AtomicBoolean();
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "equals" -> { return proxy == args[0]; }
+            case "hashCode" -> { return System.identityHashCode(proxy); }
+            default -> { }
+          }
+          if (method.getName().equals("close") && method.getParameterCount() == 0) {
+            try {
+              target.close();
+            } finally {
+              if (released.compareAndSet(false, true)) permits.release();
+            }
+            return null;
+          }
+          try {
+            return method.invoke(target, args);
+          } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+          }
+        });
+  }
+}
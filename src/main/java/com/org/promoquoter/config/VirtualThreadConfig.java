@@ -0,0 +1,36 @@
+package com.org.promoquoter.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Virtual-thread mode (spring.threads.virtual.enabled=true on a Java 21+ runtime): Tomcat then serves every
+ * request, /cart/* included, on its own virtual thread. Only active in that mode, this wraps the DataSource
+ * in a BoundedDataSource so database concurrency stays capped once the request thread pool no longer caps it.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+  @Bean
+  static BeanPostProcessor boundedDataSourcePostProcessor(Environment env) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource ds) || bean instanceof BoundedDataSource) return bean;
+        int permits = env.getProperty("promoquoter.datasource.max-concurrency", Integer.class,
+            env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        var timeout = env.getProperty("promoquoter.datasource.acquire-timeout", Duration.class, Duration.ofSeconds(5));
+        return new BoundedDataSource(ds, permits, timeout);
+      }
+    };
+  }
+}
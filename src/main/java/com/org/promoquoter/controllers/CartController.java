@@ -1,38 +1,99 @@
 package com.org.promoquoter.controllers;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.promoquoter.dto.cart.BatchQuoteRequest;
+import com.org.promoquoter.dto.cart.BatchQuoteResponse;
 import com.org.promoquoter.dto.cart.ConfirmRequest;
 import com.org.promoquoter.dto.cart.ConfirmResponse;
+import com.org.promoquoter.dto.cart.QuoteField;
 import com.org.promoquoter.dto.cart.QuoteRequest;
 import com.org.promoquoter.dto.cart.QuoteResponse;
 import com.org.promoquoter.services.OrderService;
 import com.org.promoquoter.services.QuotationService;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
 @RestController
 @RequestMapping("/cart")
 public class CartController {
+  private static final String NDJSON = "application/x-ndjson";
+
   private final QuotationService pricingService;
   private final OrderService orderService;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
 
-  public CartController(QuotationService pricingService, OrderService orderService){
+  public CartController(QuotationService pricingService, OrderService orderService, ObjectMapper objectMapper, Validator validator){
     this.pricingService = pricingService; this.orderService = orderService;
+    this.objectMapper = objectMapper; this.validator = validator;
   }
 
   @PostMapping("/quote")
-  public ResponseEntity<QuoteResponse> quote(@Valid @RequestBody QuoteRequest req){
-    return ResponseEntity.ok(pricingService.quote(req));
+  public ResponseEntity<QuoteResponse> quote(@Valid @RequestBody QuoteRequest req,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(defaultValue = "true") boolean audit){
+    return ResponseEntity.ok(pricingService.quote(req, projection(fields, audit)));
+  }
+
+  @PostMapping("/quote/batch")
+  public ResponseEntity<BatchQuoteResponse> quoteBatch(@Valid @RequestBody BatchQuoteRequest req,
+                                                       @RequestParam(required = false) String fields,
+                                                       @RequestParam(defaultValue = "true") boolean audit){
+    return ResponseEntity.ok(pricingService.quoteBatch(req, projection(fields, audit)));
+  }
+
+  /**
+   * NDJSON in, NDJSON out: one BatchQuoteResponse.Result line per cart line, in input order.
+   * Carts are read as they are priced, so neither side is ever materialized in memory.
+   */
+  @PostMapping(path = "/quote/stream", consumes = NDJSON, produces = NDJSON)
+  public void quoteStream(InputStream body,
+                          @RequestParam(required = false) String fields,
+                          @RequestParam(defaultValue = "true") boolean audit,
+                          HttpServletResponse response) throws IOException {
+    var projection = projection(fields, audit);
+    response.setContentType(NDJSON);
+    var writer = objectMapper.writerFor(BatchQuoteResponse.Result.class);
+    try (var out = new BufferedOutputStream(response.getOutputStream())) {
+      pricingService.quoteStream(new NdjsonQuoteReader(objectMapper, validator, body), projection, result -> {
+        try {
+          out.write(writer.writeValueAsBytes(result));
+          out.write('\n');
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+    }
   }
 
   @PostMapping("/confirm")
   public ResponseEntity<ConfirmResponse> confirm(@RequestHeader(name = "Idempotency-Key", required = false) String idemKey, @Valid @RequestBody ConfirmRequest req){
     return ResponseEntity.ok(orderService.confirm(req, idemKey));
   }
-}
\ No newline at end of file
+
+  // ?fields=total,items selects sections; audit=false is shorthand for dropping auditTrail
+  private static Set<QuoteField> projection(String fields, boolean audit) {
+    var selected = QuoteField.parse(fields);
+    if (audit || !selected.contains(QuoteField.AUDIT_TRAIL)) return selected;
+    var withoutAudit = EnumSet.copyOf(selected);
+    withoutAudit.remove(QuoteField.AUDIT_TRAIL);
+    return withoutAudit;
+  }
+}
@@ -0,0 +1,80 @@
+package com.org.promoquoter.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.promoquoter.dto.cart.QuoteRequest;
+
+import jakarta.validation.Validator;
+
+/**
+ * Lazily reads newline-delimited QuoteRequests off a request body, one value at a time:
+ * - A line that binds but fails bean validation throws from next() and reading carries on.
+ * - A line that is not JSON at all throws from next() and ends the stream; the parser cannot resync.
+ */
+class NdjsonQuoteReader implements Iterator<QuoteRequest> {
+
+  private final MappingIterator<QuoteRequest> values;
+  private final Validator validator;
+  private RuntimeException pending;
+  private boolean broken;
+
+  NdjsonQuoteReader(ObjectMapper objectMapper, Validator validator, InputStream body) throws IOException {
+    this.values = objectMapper.readerFor(QuoteRequest.class).readValues(body);
+    this.validator = validator;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (pending != null) return true;
+    if (broken) return false;
+    try {
+      return values.hasNextValue();
+    } catch (IOException ex) {
+      fail(ex);
+      return true;
+    }
+  }
+
+  @Override
+  public QuoteRequest next() {
+    if (pending != null) {
+      var ex = pending;
+      pending = null;
+      throw ex;
+    }
+    if (!hasNext()) throw new NoSuchElementException();
+    if (pending != null) return next();
+
+    QuoteRequest req;
+    try {
+      req = values.nextValue();
+    } catch (IOException ex) {
+      fail(ex);
+      return next();
+    }
+
+    var violations = validator.validate(req);
+    if (!violations.isEmpty()) {
+      throw new IllegalArgumentException(violations.stream()
+          .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+          .sorted()
+          .collect(Collectors.joining(", ")));
+    }
+    return req;
+  }
+
+  // Binding errors leave the parser at the end of the bad value; syntax errors do not
+  private void fail(IOException ex) {
+    broken = !(ex instanceof JsonMappingException);
+    var message = ex instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : ex.getMessage();
+    pending = new IllegalArgumentException("Unreadable cart: " + message);
+  }
+}
@@ -1,19 +1,43 @@
 package com.org.promoquoter.controllers;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.org.promoquoter.dto.product.ProductImportProgress;
+import com.org.promoquoter.dto.product.ProductPage;
 import com.org.promoquoter.dto.product.ProductsRequest;
+import com.org.promoquoter.dto.product.ProductsRequest.CreateProduct;
 import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.imports.CsvProductReader;
+import com.org.promoquoter.imports.JsonProductReader;
+import com.org.promoquoter.imports.ProductImporter;
 import com.org.promoquoter.repositories.ProductRepository;
+import org.springframework.data.domain.Limit;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 @RestController
 @RequestMapping("/products")
 public class ProductController {
+  private static final String NDJSON = "application/x-ndjson";
+  private static final String CSV = "text/csv";
+  private static final int MAX_PAGE_SIZE = 1000;
+
   private final ProductRepository repo;
-  public ProductController(ProductRepository repo){this.repo = repo;}
+  private final ProductImporter importer;
+  private final ObjectMapper objectMapper;
+  public ProductController(ProductRepository repo, ProductImporter importer, ObjectMapper objectMapper){
+    this.repo = repo; this.importer = importer; this.objectMapper = objectMapper;
+  }
 
   @PostMapping
   public ResponseEntity<?> create(@Valid @RequestBody ProductsRequest req){
@@ -24,8 +48,83 @@ public class ProductController {
     return ResponseEntity.ok(saved);
   }
 
-  @GetMapping
-  public ResponseEntity<List<Product>> getAllProducts() {
-    return ResponseEntity.ok(repo.findAll());
+  /**
+   * Streams a CSV (header: name,category,price,stock) or JSON ([...] or {"products":[...]}) body into the
+   * catalog in chunks, answering with one ProductImportProgress NDJSON line per committed chunk.
+   */
+  @PostMapping(path = "/import", consumes = { CSV, MediaType.APPLICATION_JSON_VALUE }, produces = NDJSON)
+  public void importProducts(InputStream body,
+                             @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                             HttpServletResponse response) throws IOException {
+    Iterator<CreateProduct> rows = MediaType.APPLICATION_JSON.includes(contentType)
+        ? new JsonProductReader(objectMapper, body)
+        : new CsvProductReader(body);
+    response.setContentType(NDJSON);
+    var writer = objectMapper.writerFor(ProductImportProgress.class);
+    try (var out = new BufferedOutputStream(response.getOutputStream())) {
+      importer.importAll(rows, progress -> {
+        try {
+          out.write(writer.writeValueAsBytes(progress));
+          out.write('\n');
+          out.flush(); // one line per chunk, as it commits
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+    }
+  }
+
+  /**
+   * Every product (or one category) as a JSON array, written row by row off a database cursor;
+   * heap use does not grow with the catalog.
+   */
+  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+  public void getAllProducts(@RequestParam(required = false) String category, HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    try (var out = objectMapper.writerFor(Product.class).writeValuesAsArray(response.getOutputStream())) {
+      repo.forEachProduct(category, product -> write(out, product));
+    }
+  }
+
+  /** Same rows as GET /products, one JSON object per line. */
+  @GetMapping(path = "/stream", produces = NDJSON)
+  public void streamProducts(@RequestParam(required = false) String category, HttpServletResponse response) throws IOException {
+    response.setContentType(NDJSON);
+    var writer = objectMapper.writerFor(Product.class);
+    try (var out = new BufferedOutputStream(response.getOutputStream())) {
+      repo.forEachProduct(category, product -> {
+        try {
+          out.write(writer.writeValueAsBytes(product));
+          out.write('\n');
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+    }
+  }
+
+  /**
+   * Keyset (seek) pagination by id: products with id > afterId, ascending, at most limit (1..1000) of them.
+   */
+  @GetMapping("/page")
+  public ResponseEntity<ProductPage> page(@RequestParam(defaultValue = "0") long afterId,
+                                          @RequestParam(defaultValue = "100") int limit,
+                                          @RequestParam(required = false) String category) {
+    int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    var fetch = Limit.of(size + 1); // one extra row tells whether another page exists
+    var rows = category == null
+        ? repo.findByIdGreaterThanOrderByIdAsc(afterId, fetch)
+        : repo.findByCategoryAndIdGreaterThanOrderByIdAsc(category, afterId, fetch);
+    if (rows.size() <= size) return ResponseEntity.ok(new ProductPage(rows, null));
+    var items = rows.subList(0, size);
+    return ResponseEntity.ok(new ProductPage(List.copyOf(items), items.get(size - 1).getId()));
+  }
+
+  private static void write(SequenceWriter out, Product product) {
+    try {
+      out.write(product);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
   }
 }
@@ -1,11 +1,20 @@
 package com.org.promoquoter.controllers;
 
 import jakarta.validation.Valid;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import com.org.promoquoter.dto.promotion.PromotionReplaceResponse;
 import com.org.promoquoter.dto.promotion.PromotionRequest;
+import com.org.promoquoter.dto.promotion.PromotionRequest.CreatePromotion;
+import com.org.promoquoter.dto.promotion.PromotionStatsResponse;
 import com.org.promoquoter.entities.Promotion;
+import com.org.promoquoter.promo.PromotionCatalog;
+import com.org.promoquoter.promo.PromotionProfiler;
+import com.org.promoquoter.repositories.PromotionBulkRepository;
 import com.org.promoquoter.repositories.PromotionRepository;
 
 import java.util.*;
@@ -14,18 +23,77 @@ import java.util.*;
 @RequestMapping("/promotions")
 public class PromotionController {
   private final PromotionRepository repo;
-  public PromotionController(PromotionRepository repo){this.repo = repo;}
+  private final PromotionCatalog catalog;
+  private final PromotionProfiler profiler;
+  private final TransactionTemplate tx;
+  public PromotionController(PromotionRepository repo, PromotionCatalog catalog, PromotionProfiler profiler,
+                             PlatformTransactionManager txManager){
+    this.repo = repo; this.catalog = catalog; this.profiler = profiler;
+    this.tx = new TransactionTemplate(txManager);
+  }
 
+  /**
+   * Saves every promotion in one transaction, so a failing row (say, a name that already exists) leaves
+   * none of them behind. The snapshot is rebuilt only after that commit.
+   */
   @PostMapping
   public ResponseEntity<?> create(@Valid @RequestBody PromotionRequest req){
-    var saved = new ArrayList<Promotion>();
+    var saved = tx.execute(status -> {
+      var rows = new ArrayList<Promotion>();
+      for (var r : req.promotions()) {
+        rows.add(repo.save(toEntity(r)));
+      }
+      return rows;
+    });
+    if (!saved.isEmpty()) catalog.refresh();
+    return ResponseEntity.ok(saved);
+  }
+
+  /**
+   * Replaces the whole promotion set, matched on name: existing names are updated in place, new ones
+   * inserted, the rest deleted, all in one batched transaction. Only after it commits is one new snapshot
+   * compiled and swapped in, so quotes see the old campaign or the new one, never a mix.
+   */
+  @PutMapping
+  public ResponseEntity<PromotionReplaceResponse> replace(@Valid @RequestBody PromotionRequest req){
+    var names = new HashSet<String>();
+    var promotions = new ArrayList<Promotion>(req.promotions().size());
     for (var r : req.promotions()) {
-      saved.add(repo.save(Promotion.builder()
-        .type(r.type()).name(r.name()).priority(r.priority()).enabled(r.enabled())
-        .category(r.category()).percent(r.percent())
-        .productId(r.productId()).buyQty(r.buyQty()).freeQty(r.freeQty())
-        .build()));
+      if (r.name() == null || r.name().isBlank()) {
+        throw new IllegalArgumentException("Promotion name is required for replace");
+      }
+      if (!names.add(r.name())) {
+        throw new IllegalArgumentException("Duplicate promotion name: " + r.name());
+      }
+      promotions.add(toEntity(r));
     }
-    return ResponseEntity.ok(saved);
+
+    PromotionBulkRepository.ReplaceResult written;
+    try {
+      written = repo.replaceAll(promotions);
+    } catch (DuplicateKeyException ex) {
+      // another write inserted one of our new names between our read and our insert
+      throw new IllegalStateException("Promotions were changed concurrently; please retry", ex);
+    }
+    var snapshot = catalog.refresh();
+    return ResponseEntity.ok(new PromotionReplaceResponse(
+      written.inserted(), written.updated(), written.deleted(), snapshot.version()));
+  }
+
+  /**
+   * The most expensive promotions by sampled p99 over the profiler's rolling range.
+   * Empty unless promoquoter.promotion-profiler.sample-rate is above 0.
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<List<PromotionStatsResponse>> stats(@RequestParam(defaultValue = "10") int limit){
+    return ResponseEntity.ok(profiler.top(limit));
+  }
+
+  private static Promotion toEntity(CreatePromotion r){
+    return Promotion.builder()
+      .type(r.type()).name(r.name()).priority(r.priority()).enabled(r.enabled())
+      .category(r.category()).percent(r.percent())
+      .productId(r.productId()).buyQty(r.buyQty()).freeQty(r.freeQty())
+      .build();
   }
 }
@@ -0,0 +1,11 @@
+package com.org.promoquoter.dto.cart;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+// Carts are deliberately not @Valid: QuotationService.quoteBatch validates each one and reports it per cart
+public record BatchQuoteRequest(
+  @NotEmpty @Size(max = 200) List<QuoteRequest> carts
+) {}
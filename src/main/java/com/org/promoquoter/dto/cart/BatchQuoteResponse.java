@@ -0,0 +1,26 @@
+package com.org.promoquoter.dto.cart;
+
+import java.util.List;
+
+/**
+ * One result per submitted cart, in request order.
+ */
+public record BatchQuoteResponse(
+  List<Result> results
+) {
+
+  /** Exactly one of quote / error is set. */
+  public record Result(
+    int index,
+    QuoteResponse quote,
+    String error
+  ) {
+    public static Result ok(int index, QuoteResponse quote) {
+      return new Result(index, quote, null);
+    }
+
+    public static Result failed(int index, String error) {
+      return new Result(index, null, error);
+    }
+  }
+}
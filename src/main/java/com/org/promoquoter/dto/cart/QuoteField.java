@@ -0,0 +1,48 @@
+package com.org.promoquoter.dto.cart;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sections of a QuoteResponse a caller can ask for (?fields=total,items); sections not asked for
+ * are neither computed nor serialized.
+ */
+public enum QuoteField {
+  ITEMS("items"),
+  TOTAL("total"),
+  APPLIED_PROMOTIONS("appliedPromotions"),
+  AUDIT_TRAIL("auditTrail");
+
+  public static final Set<QuoteField> ALL = Collections.unmodifiableSet(EnumSet.allOf(QuoteField.class));
+
+  private final String json;
+
+  QuoteField(String json) {
+    this.json = json;
+  }
+
+  public String json() {
+    return json;
+  }
+
+  /**
+   * Parses a comma-separated list of JSON section names; null or blank means every section.
+   */
+  public static Set<QuoteField> parse(String csv) {
+    if (csv == null || csv.isBlank()) return ALL;
+    var fields = EnumSet.noneOf(QuoteField.class);
+    for (var name : csv.split(",")) {
+      var trimmed = name.trim();
+      if (trimmed.isEmpty()) continue;
+      fields.add(Stream.of(values())
+          .filter(f -> f.json.equals(trimmed))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("Unknown quote field: " + trimmed + "; expected one of "
+              + Stream.of(values()).map(QuoteField::json).collect(Collectors.joining(", ")))));
+    }
+    return Collections.unmodifiableSet(fields);
+  }
+}
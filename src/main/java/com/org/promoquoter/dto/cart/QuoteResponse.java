@@ -3,6 +3,12 @@ package com.org.promoquoter.dto.cart;
 import java.math.BigDecimal;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Sections left out by a ?fields= projection are null and omitted from the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record QuoteResponse(
   List<QuoteItemResponse> items,
   BigDecimal total,
@@ -0,0 +1,24 @@
+package com.org.promoquoter.dto.product;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One NDJSON line of POST /products/import, written after each chunk commits (or rolls back).
+ * Rows are numbered from 1 in input order, excluding a CSV header.
+ * error is set when the whole chunk failed to insert; its rows then count as failed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductImportProgress(
+  int chunk,
+  long firstRow,
+  long lastRow,
+  int imported,
+  List<RowError> failed,
+  String error,
+  long totalImported,
+  long totalFailed
+) {
+  public record RowError(long row, String error) {}
+}
@@ -0,0 +1,11 @@
+package com.org.promoquoter.dto.product;
+
+import java.util.List;
+
+import com.org.promoquoter.entities.Product;
+
+/**
+ * One keyset page of GET /products/page; pass nextAfterId back as afterId for the next page.
+ * nextAfterId is null on the last page.
+ */
+public record ProductPage(List<Product> items, Long nextAfterId) {}
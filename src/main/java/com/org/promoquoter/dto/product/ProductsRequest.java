@@ -3,15 +3,19 @@ package com.org.promoquoter.dto.product;
 import java.math.BigDecimal;
 import java.util.List;
 
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 public record ProductsRequest(List<CreateProduct> products) {
+  // limits mirror the product table (varchar(255), numeric(19,2)) so the importer rejects a row before its batch
   public record CreateProduct(
-    @NotBlank String name,
-    @NotBlank String category,
-    @Positive BigDecimal price,
+    @NotBlank @Size(max = 255) String name,
+    @NotBlank @Size(max = 255) String category,
+    @NotNull @Positive @DecimalMax("99999999999999999.99") BigDecimal price,
     @PositiveOrZero int stock
   ) {}
 }
@@ -0,0 +1,12 @@
+package com.org.promoquoter.dto.promotion;
+
+/**
+ * Outcome of PUT /promotions: rows written in the one transaction and the snapshot version that now
+ * serves quotes (the new set, or a later one).
+ */
+public record PromotionReplaceResponse(
+  int inserted,
+  int updated,
+  int deleted,
+  long snapshotVersion
+) {}
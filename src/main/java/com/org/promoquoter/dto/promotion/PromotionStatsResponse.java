@@ -0,0 +1,20 @@
+package com.org.promoquoter.dto.promotion;
+
+import java.math.BigDecimal;
+
+import com.org.promoquoter.entities.PromotionType;
+
+/**
+ * Sampled cost of one promotion over the profiler's rolling range; times in microseconds.
+ */
+public record PromotionStatsResponse(
+  Long promotionId,
+  String name,
+  PromotionType type,
+  long samples,
+  double meanMicros,
+  double p50Micros,
+  double p99Micros,
+  double maxMicros,
+  BigDecimal avgDiscount
+) {}
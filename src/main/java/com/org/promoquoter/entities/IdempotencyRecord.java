@@ -2,10 +2,18 @@ package com.org.promoquoter.entities;
 
 import java.time.OffsetDateTime;
 
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -18,18 +26,40 @@ import lombok.Setter;
 @NoArgsConstructor 
 @AllArgsConstructor 
 @Builder
-@Table(name = "idempotency_record")
-public class IdempotencyRecord {
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+public class IdempotencyRecord implements Persistable<String> {
   @Id
   @Column(name = "idempotency_key", length = 255)
   private String idempotencyKey;
 
-  //optional
-  @Column(length = 2000)
-  private String requestHash;
+  // 128-bit RequestHash of the canonical ConfirmRequest
+  @JdbcTypeCode(SqlTypes.BINARY)
+  @Column(length = 16)
+  private byte[] requestHash;
 
   private String orderId;
 
   @Column(columnDefinition = "TIMESTAMP WITH TIME ZONE")
   private OffsetDateTime createdAt;
+
+  // Keys are client-assigned: save() must INSERT (a replayed key fails on the PK) instead of merge-overwriting
+  @Transient
+  @Builder.Default
+  private boolean isNew = true;
+
+  @Override
+  public String getId() {
+    return idempotencyKey;
+  }
+
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
 }
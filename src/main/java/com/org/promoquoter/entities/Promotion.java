@@ -9,6 +9,8 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -21,6 +23,7 @@ import lombok.Setter;
 @NoArgsConstructor 
 @AllArgsConstructor 
 @Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_promotion_name", columnNames = "name"))
 public class Promotion {
   @Id 
   @GeneratedValue(strategy = GenerationType.IDENTITY)
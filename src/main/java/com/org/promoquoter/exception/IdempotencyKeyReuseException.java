@@ -0,0 +1,11 @@
+package com.org.promoquoter.exception;
+
+/**
+ * Raised when an Idempotency-Key is replayed with a request that hashes differently from the original.
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+  public IdempotencyKeyReuseException(String key) {
+    super("Idempotency-Key " + key + " was already used with a different request");
+  }
+}
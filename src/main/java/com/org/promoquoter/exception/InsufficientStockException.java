@@ -0,0 +1,20 @@
+package com.org.promoquoter.exception;
+
+import java.util.List;
+
+/**
+ * Raised when a reservation could not be satisfied; lists every short product.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+  private final List<Long> productIds;
+
+  public InsufficientStockException(List<Long> productIds, List<String> productNames) {
+    super("Insufficient stock for " + String.join(", ", productNames));
+    this.productIds = List.copyOf(productIds);
+  }
+
+  public List<Long> getProductIds() {
+    return productIds;
+  }
+}
@@ -0,0 +1,20 @@
+package com.org.promoquoter.exception;
+
+import java.util.List;
+
+/**
+ * Raised when a product was repriced (or recategorised) between quoting and reserving it.
+ */
+public class PriceChangedException extends RuntimeException {
+
+  private final List<Long> productIds;
+
+  public PriceChangedException(List<Long> productIds, List<String> productNames) {
+    super("Price changed for " + String.join(", ", productNames) + "; please re-quote");
+    this.productIds = List.copyOf(productIds);
+  }
+
+  public List<Long> getProductIds() {
+    return productIds;
+  }
+}
@@ -0,0 +1,64 @@
+package com.org.promoquoter.idempotency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free bloom filter over String keys:
+ * - Sized from expected insertions and a target false-positive rate.
+ * - k probe positions derived from one 64-bit hash pair (Kirsch-Mitzenmacher double hashing).
+ * - mightContain == false is definitive; true only means "look it up".
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashes;
+
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6));
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words << 6;
+    this.hashes = (int) Math.max(1, Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  public void put(String key) {
+    long h1 = hash(key);
+    long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+    for (int i = 0; i < hashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      long mask = 1L << bit;
+      bits.accumulateAndGet((int) (bit >>> 6), mask, (word, m) -> word | m);
+    }
+  }
+
+  public boolean mightContain(String key) {
+    long h1 = hash(key);
+    long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+    for (int i = 0; i < hashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+    }
+    return true;
+  }
+
+  private static long hash(String key) {
+    long h = 0x9E3779B97F4A7C15L;
+    for (int i = 0; i < key.length(); i++) {
+      h ^= key.charAt(i);
+      h = Long.rotateLeft(h * 0xFF51AFD7ED558CCDL, 31);
+    }
+    return mix(h ^ key.length());
+  }
+
+  // MurmurHash3 fmix64 finalizer
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
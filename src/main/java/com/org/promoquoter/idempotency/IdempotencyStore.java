@@ -0,0 +1,269 @@
+package com.org.promoquoter.idempotency;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.org.promoquoter.dto.cart.ConfirmResponse;
+import com.org.promoquoter.entities.IdempotencyRecord;
+import com.org.promoquoter.exception.IdempotencyKeyReuseException;
+import com.org.promoquoter.repositories.IdempotencyRepository;
+import com.org.promoquoter.repositories.OrderRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idempotency-Key lookups with two in-memory fast paths in front of the database:
+ * - A bounded Caffeine cache of key -> (request hash, orderId, total) answers replays without any query.
+ * - Every replay is checked against the original RequestHash; a mismatch is rejected before the order is read.
+ * - A two-generation bloom filter over every key that may still have a row answers definite misses
+ *   without any query. A generation is only dropped once a purge has deleted every row it could cover.
+ *   The filter is per process while the table is shared, so a "definite miss" can be wrong across instances;
+ *   the record insert then hits the primary key and the stored order is replayed (see singleFlight).
+ * - Rows older than the TTL are purged in bounded batches by a background task.
+ * - Concurrent requests for the same key are coalesced (single-flight): the first owns the key,
+ *   duplicates wait for its committed outcome instead of doing the work themselves.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+  private static final double BLOOM_FPP = 0.01;
+
+  // Bloom generations; swapped together under the store's monitor
+  private record Generations(BloomFilter current, BloomFilter previous, Instant previousClosedAt) {}
+
+  private record Replay(byte[] requestHash, ConfirmResponse response) {}
+
+  private record Flight(byte[] requestHash, CompletableFuture<ConfirmResponse> future) {}
+
+  private final IdempotencyRepository idemRepo;
+  private final OrderRepository orderRepo;
+  private final Duration ttl;
+  private final Duration purgeInterval;
+  private final int purgeBatchSize;
+  private final long bloomExpectedKeys;
+  private final Cache<String, Replay> cache;
+  private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+  private volatile Generations generations;
+  private ScheduledExecutorService purger;
+
+  public IdempotencyStore(IdempotencyRepository idemRepo,
+                          OrderRepository orderRepo,
+                          @Value("${promoquoter.idempotency.ttl:P1D}") Duration ttl,
+                          @Value("${promoquoter.idempotency.purge-interval:PT10M}") Duration purgeInterval,
+                          @Value("${promoquoter.idempotency.purge-batch-size:500}") int purgeBatchSize,
+                          @Value("${promoquoter.idempotency.cache-max-size:100000}") long cacheMaxSize,
+                          @Value("${promoquoter.idempotency.bloom-expected-keys:1000000}") long bloomExpectedKeys) {
+    this.idemRepo = idemRepo;
+    this.orderRepo = orderRepo;
+    this.ttl = ttl;
+    this.purgeInterval = purgeInterval;
+    this.purgeBatchSize = Math.max(1, purgeBatchSize);
+    this.bloomExpectedKeys = bloomExpectedKeys;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfterWrite(ttl)
+        .build();
+    this.generations = new Generations(newFilter(), newFilter(), Instant.MIN);
+  }
+
+  /**
+   * Seeds the bloom filter with every key that still has a row (bounded by the TTL purge), streamed off a
+   * cursor rather than loaded into one list, then schedules the purge.
+   */
+  @PostConstruct
+  public void start() {
+    var current = generations.current();
+    idemRepo.forEachKey(current::put);
+    if (purgeInterval.isZero()) return;
+    purger = Executors.newSingleThreadScheduledExecutor(r -> {
+      var t = new Thread(r, "idempotency-purge");
+      t.setDaemon(true);
+      return t;
+    });
+    long ms = purgeInterval.toMillis();
+    purger.scheduleWithFixedDelay(this::purgeQuietly, ms, ms, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    if (purger != null) {
+      purger.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the order previously confirmed under this key, if any.
+   *
+   * @throws IdempotencyKeyReuseException if the key was recorded for a request with a different hash
+   */
+  public Optional<ConfirmResponse> find(String key, byte[] requestHash) {
+    var cached = cache.getIfPresent(key);
+    if (cached != null) return Optional.of(checked(key, requestHash, cached.requestHash(), cached.response()));
+
+    var g = generations;
+    if (!g.current().mightContain(key) && !g.previous().mightContain(key)) {
+      return Optional.empty(); // definite miss: skip both queries
+    }
+    return load(key, requestHash);
+  }
+
+  // Database lookup without the bloom check, caching what it finds
+  private Optional<ConfirmResponse> load(String key, byte[] requestHash) {
+    return idemRepo.findById(key).map(rec -> {
+      checked(key, requestHash, rec.getRequestHash(), null);
+      var order = orderRepo.findById(rec.getOrderId()).orElseThrow();
+      var response = new ConfirmResponse(order.getId(), order.getTotal());
+      cache.put(key, new Replay(rec.getRequestHash(), response));
+      return response;
+    });
+  }
+
+  /**
+   * Runs {@code work} once per key at a time. The first caller executes it; callers arriving while it
+   * is in flight block on its future and receive the same response (or the same exception).
+   * {@code work} must have committed by the time it returns, so that late arrivals find the key recorded.
+   */
+  public ConfirmResponse singleFlight(String key, byte[] requestHash, Supplier<ConfirmResponse> work) {
+    var mine = new CompletableFuture<ConfirmResponse>();
+    var flight = new Flight(requestHash, mine);
+    var owner = inFlight.putIfAbsent(key, flight);
+    if (owner != null) {
+      if (!Arrays.equals(owner.requestHash(), requestHash)) throw new IdempotencyKeyReuseException(key);
+      return await(owner.future());
+    }
+    try {
+      // a previous owner may have committed between the caller's find() and our claim
+      var response = find(key, requestHash).orElseGet(() -> placeOrReplay(key, requestHash, work));
+      mine.complete(response);
+      return response;
+    } catch (RuntimeException ex) {
+      mine.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      if (!mine.isDone()) mine.completeExceptionally(new IllegalStateException("Confirm aborted for key " + key));
+      inFlight.remove(key, flight);
+    }
+  }
+
+  // The bloom filter only knows keys this process has seen or seeded, but the table is shared: another
+  // instance may have recorded the key since. The record insert then fails on the primary key, rolling the
+  // whole order back, and the stored order is replayed instead.
+  private ConfirmResponse placeOrReplay(String key, byte[] requestHash, Supplier<ConfirmResponse> work) {
+    try {
+      return work.get();
+    } catch (DataIntegrityViolationException ex) {
+      var existing = load(key, requestHash);
+      if (existing.isEmpty()) throw ex; // some other constraint
+      put(key);
+      return existing.get();
+    }
+  }
+
+  private static ConfirmResponse await(CompletableFuture<ConfirmResponse> owner) {
+    try {
+      return owner.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException re) throw re;
+      throw ex;
+    }
+  }
+
+  /**
+   * Inserts the key's record in the caller's transaction; the cache only learns about it once that commits.
+   */
+  public void record(String key, byte[] requestHash, String orderId, BigDecimal total) {
+    idemRepo.save(IdempotencyRecord.builder()
+        .idempotencyKey(key)
+        .orderId(orderId)
+        .createdAt(OffsetDateTime.now())
+        .requestHash(requestHash)
+        .build());
+    put(key); // before commit: an extra maybe is harmless, a missed key is not
+
+    var response = new Replay(requestHash, new ConfirmResponse(orderId, total));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          cache.put(key, response);
+        }
+      });
+    } else {
+      cache.put(key, response);
+    }
+  }
+
+  /**
+   * Deletes rows older than the TTL in batches of purge-batch-size, then retires the previous bloom
+   * generation if every key in it is now past the cutoff.
+   *
+   * @return number of rows deleted
+   */
+  public int purge() {
+    var cutoff = OffsetDateTime.now().minus(ttl);
+    int total = 0;
+    int deleted;
+    do {
+      deleted = idemRepo.deleteCreatedBefore(cutoff, purgeBatchSize);
+      total += deleted;
+    } while (deleted == purgeBatchSize);
+    rotate(cutoff.toInstant());
+    return total;
+  }
+
+  // Records written before request hashing (null hash) are accepted as-is
+  private static ConfirmResponse checked(String key, byte[] expected, byte[] stored, ConfirmResponse response) {
+    if (stored != null && !Arrays.equals(stored, expected)) {
+      throw new IdempotencyKeyReuseException(key);
+    }
+    return response;
+  }
+
+  private synchronized void put(String key) {
+    generations.current().put(key);
+  }
+
+  // Keys in "previous" were all added before previousClosedAt, so once that is older than the cutoff
+  // their rows are gone and the generation can be forgotten
+  private synchronized void rotate(Instant cutoff) {
+    var g = generations;
+    if (!g.previousClosedAt().isAfter(cutoff)) {
+      generations = new Generations(newFilter(), g.current(), Instant.now());
+    }
+  }
+
+  private BloomFilter newFilter() {
+    return new BloomFilter(bloomExpectedKeys, BLOOM_FPP);
+  }
+
+  private void purgeQuietly() {
+    try {
+      int deleted = purge();
+      if (deleted > 0) log.debug("Purged {} expired idempotency records", deleted);
+    } catch (RuntimeException ex) {
+      log.warn("Idempotency purge failed, will retry", ex);
+    }
+  }
+}
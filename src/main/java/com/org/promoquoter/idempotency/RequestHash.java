@@ -0,0 +1,115 @@
+package com.org.promoquoter.idempotency;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.ConfirmRequest;
+
+/**
+ * Canonical 128-bit fingerprint of a ConfirmRequest, used to detect Idempotency-Key reuse:
+ * - Lines are sorted by product id and quantities of repeated products summed, so equivalent carts match.
+ * - The segment is length-prefixed (null and "" differ).
+ * - Fields are streamed as longs straight into MurmurHash3 x64_128; no intermediate string or byte buffer.
+ */
+public final class RequestHash {
+
+  public static final int LENGTH = 16;
+
+  private RequestHash() {}
+
+  public static byte[] of(ConfirmRequest req) {
+    var h = new Murmur3();
+
+    CartItem[] items = req.items().toArray(CartItem[]::new);
+    Arrays.sort(items, Comparator.comparing(CartItem::productId));
+    int i = 0;
+    while (i < items.length) {
+      long id = items[i].productId();
+      long qty = 0;
+      while (i < items.length && items[i].productId() == id) {
+        qty += items[i++].qty();
+      }
+      h.putLong(id);
+      h.putLong(qty);
+    }
+
+    String segment = req.customerSegment();
+    if (segment == null) {
+      h.putLong(-1L);
+    } else {
+      h.putLong(segment.length());
+      long word = 0;
+      for (int c = 0; c < segment.length(); c++) {
+        word = (word << 16) | segment.charAt(c);
+        if ((c & 3) == 3) {
+          h.putLong(word);
+          word = 0;
+        }
+      }
+      if ((segment.length() & 3) != 0) h.putLong(word);
+    }
+    return h.finish();
+  }
+
+  // MurmurHash3 x64_128 over a stream of little-endian longs
+  private static final class Murmur3 {
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private long h1;
+    private long h2;
+    private long pending;
+    private boolean hasPending;
+    private long length;
+
+    void putLong(long v) {
+      length += 8;
+      if (!hasPending) {
+        pending = v;
+        hasPending = true;
+        return;
+      }
+      hasPending = false;
+      long k1 = pending;
+      long k2 = v;
+
+      k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+      h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52DCE729;
+
+      k2 *= C2; k2 = Long.rotateLeft(k2, 33); k2 *= C1; h2 ^= k2;
+      h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495AB5;
+    }
+
+    byte[] finish() {
+      if (hasPending) {
+        long k1 = pending;
+        k1 *= C1; k1 = Long.rotateLeft(k1, 31); k1 *= C2; h1 ^= k1;
+      }
+      h1 ^= length;
+      h2 ^= length;
+      h1 += h2;
+      h2 += h1;
+      h1 = fmix64(h1);
+      h2 = fmix64(h2);
+      h1 += h2;
+      h2 += h1;
+
+      byte[] out = new byte[LENGTH];
+      for (int b = 0; b < 8; b++) {
+        out[b] = (byte) (h1 >>> (8 * b));
+        out[8 + b] = (byte) (h2 >>> (8 * b));
+      }
+      return out;
+    }
+
+    private static long fmix64(long k) {
+      k ^= k >>> 33;
+      k *= 0xFF51AFD7ED558CCDL;
+      k ^= k >>> 33;
+      k *= 0xC4CEB9FE1A85EC53L;
+      k ^= k >>> 33;
+      return k;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.org.promoquoter.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.org.promoquoter.dto.product.ProductsRequest.CreateProduct;
+
+/**
+ * Lazily reads products from a CSV body, one line at a time:
+ * - The first line is a header naming at least name, category, price and stock (any order, any case);
+ *   other columns are ignored.
+ * - Fields may be double-quoted, with "" as an escaped quote; quoted fields cannot span lines.
+ * - Blank lines are skipped. A line that cannot be converted throws from next() and reading carries on.
+ */
+public class CsvProductReader implements Iterator<CreateProduct> {
+
+  private static final List<String> COLUMNS = List.of("name", "category", "price", "stock");
+
+  private final BufferedReader lines;
+  private final int[] columns = new int[COLUMNS.size()];
+  private String line;
+
+  public CsvProductReader(InputStream body) throws IOException {
+    this.lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    var header = lines.readLine();
+    if (header == null) throw new IllegalArgumentException("CSV header is missing");
+    if (header.startsWith("\uFEFF")) header = header.substring(1);
+
+    Map<String, Integer> positions = new HashMap<>();
+    var names = split(header);
+    for (int i = 0; i < names.size(); i++) {
+      positions.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+    }
+    for (int i = 0; i < COLUMNS.size(); i++) {
+      var position = positions.get(COLUMNS.get(i));
+      if (position == null) {
+        throw new IllegalArgumentException("CSV header must contain " + String.join(", ", COLUMNS) + "; got: " + header);
+      }
+      columns[i] = position;
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      while (line == null) {
+        var read = lines.readLine();
+        if (read == null) return false;
+        if (!read.isBlank()) line = read;
+      }
+      return true;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @Override
+  public CreateProduct next() {
+    if (!hasNext()) throw new NoSuchElementException();
+    var fields = split(line);
+    line = null;
+
+    var name = field(fields, 0);
+    var category = field(fields, 1);
+    var price = field(fields, 2);
+    var stock = field(fields, 3);
+    try {
+      return new CreateProduct(name, category, price.isEmpty() ? null : new BigDecimal(price),
+          stock.isEmpty() ? 0 : Integer.parseInt(stock));
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("price/stock must be numbers; got price=" + price + ", stock=" + stock);
+    }
+  }
+
+  private String field(List<String> fields, int column) {
+    int i = columns[column];
+    return i < fields.size() ? fields.get(i).trim() : "";
+  }
+
+  // RFC 4180 fields within one line
+  static List<String> split(String line) {
+    List<String> fields = new ArrayList<>();
+    var current = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          current.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          current.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(current.toString());
+        current.setLength(0);
+      } else {
+        current.append(c);
+      }
+    }
+    if (quoted) throw new IllegalArgumentException("Unterminated quoted field");
+    fields.add(current.toString());
+    return fields;
+  }
+}
@@ -0,0 +1,103 @@
+package com.org.promoquoter.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.org.promoquoter.dto.product.ProductsRequest.CreateProduct;
+
+/**
+ * Lazily reads products from a JSON body, either a bare array or the POST /products shape
+ * {"products":[...]}, one element at a time:
+ * - Each element is read as a tree first, so one that does not bind throws from next() and reading carries on.
+ * - Malformed JSON throws from next() and ends the stream; the parser cannot resync.
+ */
+public class JsonProductReader implements Iterator<CreateProduct> {
+
+  private final ObjectMapper objectMapper;
+  private final ObjectReader trees;
+  private final JsonParser parser;
+  private RuntimeException pending;
+  private boolean peeked;
+  private boolean done;
+
+  public JsonProductReader(ObjectMapper objectMapper, InputStream body) throws IOException {
+    this.objectMapper = objectMapper;
+    // prices keep their exact decimal text on the way through the tree
+    this.trees = objectMapper.reader()
+        .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+        .without(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES);
+    this.parser = objectMapper.createParser(body);
+    var token = parser.nextToken();
+    if (token == JsonToken.START_OBJECT) {
+      while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+        var field = parser.currentName();
+        token = parser.nextToken();
+        if ("products".equals(field)) break;
+        parser.skipChildren();
+      }
+    }
+    if (token != JsonToken.START_ARRAY) {
+      throw new IllegalArgumentException("Expected a JSON array of products or {\"products\":[...]}");
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (pending != null) return true;
+    if (done) return false;
+    if (peeked) return true;
+    try {
+      var token = parser.nextToken();
+      if (token == null || token == JsonToken.END_ARRAY) {
+        done = true;
+        return false;
+      }
+      peeked = true;
+      return true;
+    } catch (IOException ex) {
+      fail(ex);
+      return true;
+    }
+  }
+
+  @Override
+  public CreateProduct next() {
+    if (!hasNext()) throw new NoSuchElementException();
+    if (pending != null) {
+      var ex = pending;
+      pending = null;
+      throw ex;
+    }
+    peeked = false;
+
+    JsonNode node;
+    try {
+      node = trees.readTree(parser);
+    } catch (IOException ex) {
+      fail(ex);
+      return next();
+    }
+    try {
+      return objectMapper.treeToValue(node, CreateProduct.class);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalArgumentException("Unreadable product: " + ex.getOriginalMessage());
+    }
+  }
+
+  // Syntax errors leave the parser mid-value: nothing after them can be trusted
+  private void fail(IOException ex) {
+    done = true;
+    var message = ex instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : ex.getMessage();
+    pending = new IllegalArgumentException("Unreadable product: " + message);
+  }
+}
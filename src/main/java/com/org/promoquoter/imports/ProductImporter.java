@@ -0,0 +1,100 @@
+package com.org.promoquoter.imports;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.org.promoquoter.dto.product.ProductImportProgress;
+import com.org.promoquoter.dto.product.ProductImportProgress.RowError;
+import com.org.promoquoter.dto.product.ProductsRequest.CreateProduct;
+import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.repositories.ProductRepository;
+
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk product import for catalogs too large for POST /products:
+ * - Pulls rows from a lazy source chunk-size at a time, so memory is bounded by one chunk.
+ * - Rows that cannot be read or fail bean validation are reported and skipped; the rest of the chunk
+ *   is inserted with one JDBC batch and committed in its own transaction. CreateProduct's constraints
+ *   cover every product column, so one bad cell cannot fail the batch for the rows around it.
+ * - A chunk whose insert fails is rolled back and reported as a whole; later chunks still run.
+ * - Progress is handed to the caller after every chunk, in order.
+ * New rows have ids the ProductCatalog has never seen, so there is nothing to invalidate.
+ */
+@Slf4j
+@Component
+public class ProductImporter {
+
+  private final ProductRepository productRepo;
+  private final Validator validator;
+  private final TransactionTemplate tx;
+  private final int chunkSize;
+
+  public ProductImporter(ProductRepository productRepo,
+                         Validator validator,
+                         PlatformTransactionManager txManager,
+                         @Value("${promoquoter.product-import.chunk-size:1000}") int chunkSize) {
+    this.productRepo = productRepo;
+    this.validator = validator;
+    this.tx = new TransactionTemplate(txManager);
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  /**
+   * @return number of products imported
+   */
+  public long importAll(Iterator<CreateProduct> rows, Consumer<ProductImportProgress> progress) {
+    long row = 0;
+    long totalImported = 0;
+    long totalFailed = 0;
+    int chunk = 0;
+    while (rows.hasNext()) {
+      long firstRow = row + 1;
+      var products = new ArrayList<Product>(chunkSize);
+      var failed = new ArrayList<RowError>();
+      while (row - firstRow + 1 < chunkSize && rows.hasNext()) {
+        row++;
+        try {
+          products.add(toProduct(rows.next()));
+        } catch (RuntimeException ex) {
+          failed.add(new RowError(row, ex.getMessage()));
+        }
+      }
+
+      int imported = 0;
+      String error = null;
+      try {
+        imported = products.isEmpty() ? 0 : tx.execute(status -> productRepo.insertAll(products));
+      } catch (DataAccessException ex) {
+        log.warn("Product import chunk {} (rows {}-{}) rolled back", chunk, firstRow, row, ex);
+        error = ex.getMostSpecificCause().getMessage();
+      }
+      totalImported += imported;
+      totalFailed += failed.size() + (error == null ? 0 : products.size());
+      progress.accept(new ProductImportProgress(chunk++, firstRow, row, imported, List.copyOf(failed), error,
+          totalImported, totalFailed));
+    }
+    return totalImported;
+  }
+
+  private Product toProduct(CreateProduct p) {
+    var violations = validator.validate(p);
+    if (!violations.isEmpty()) {
+      throw new IllegalArgumentException(violations.stream()
+          .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+          .sorted()
+          .collect(Collectors.joining(", ")));
+    }
+    return Product.builder().name(p.name()).category(p.category()).price(p.price()).stock(p.stock()).build();
+  }
+}
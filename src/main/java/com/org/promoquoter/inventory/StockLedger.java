@@ -0,0 +1,256 @@
+package com.org.promoquoter.inventory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.org.promoquoter.repositories.ProductRepository;
+import com.org.promoquoter.repositories.StockReservation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional in-process stock ledger for hot SKUs (promoquoter.stock-ledger.enabled):
+ * - A product's available stock is seeded from the database on first touch and then kept in memory.
+ * - Admission is lock-striped by product id; an order takes its stripes in ascending index order,
+ *   so it is all-or-nothing and deadlock-free without ever locking the product row.
+ * - Admitted quantities become pending decrements when the surrounding transaction commits
+ *   (and are handed back on rollback); a background flusher writes them in small JDBC batches, each in
+ *   its own transaction, so a failed batch is rolled back whole and retried without applying any row twice.
+ * - While enabled the ledger is the stock authority: run a single instance, and expect decrements
+ *   still pending at a crash to be lost.
+ */
+@Slf4j
+@Component
+public class StockLedger {
+
+  // All fields guarded by the product's stripe lock
+  private static final class Slot {
+    boolean loaded;
+    int available;
+    int pending;
+  }
+
+  private final ProductRepository stockRepo;
+  private final TransactionTemplate tx;
+  private final boolean enabled;
+  private final ReentrantLock[] stripes;
+  private final int mask;
+  private final int flushBatchSize;
+  private final Duration flushInterval;
+  private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private ScheduledExecutorService flusher;
+
+  public StockLedger(ProductRepository stockRepo,
+                     PlatformTransactionManager txManager,
+                     @Value("${promoquoter.stock-ledger.enabled:false}") boolean enabled,
+                     @Value("${promoquoter.stock-ledger.stripes:64}") int stripes,
+                     @Value("${promoquoter.stock-ledger.flush-batch-size:100}") int flushBatchSize,
+                     @Value("${promoquoter.stock-ledger.flush-interval:PT0.2S}") Duration flushInterval) {
+    this.stockRepo = stockRepo;
+    this.tx = new TransactionTemplate(txManager);
+    this.enabled = enabled;
+    int n = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1; // next power of two
+    this.stripes = new ReentrantLock[n];
+    for (int i = 0; i < n; i++) this.stripes[i] = new ReentrantLock();
+    this.mask = n - 1;
+    this.flushBatchSize = Math.max(1, flushBatchSize);
+    this.flushInterval = flushInterval;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @PostConstruct
+  void start() {
+    if (!enabled || flushInterval.isZero()) return;
+    flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      var t = new Thread(r, "stock-ledger-flush");
+      t.setDaemon(true);
+      return t;
+    });
+    long ms = flushInterval.toMillis();
+    flusher.scheduleWithFixedDelay(this::flushQuietly, ms, ms, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    if (enabled) {
+      flushQuietly();
+    }
+  }
+
+  /**
+   * Admits the whole reservation or nothing.
+   *
+   * @return ids that could not be admitted (short or unknown), in id order; empty when admitted
+   */
+  public List<Long> reserve(Collection<StockReservation> reservations) {
+    var qtyById = new TreeMap<Long, Integer>();
+    reservations.forEach(r -> qtyById.merge(r.productId(), r.qty(), Integer::sum));
+    if (qtyById.isEmpty()) return List.of();
+
+    // Seed unseen products outside the locks; a concurrent seeder may win, which is harmless
+    var unseen = qtyById.keySet().stream().filter(id -> !slots.containsKey(id)).toList();
+    Map<Long, Integer> seed = unseen.isEmpty() ? Map.of() : stockRepo.findStock(unseen);
+
+    var locks = lockAll(qtyById.keySet());
+    try {
+      List<Long> shortIds = new ArrayList<>();
+      qtyById.forEach((id, qty) -> {
+        var slot = slots.computeIfAbsent(id, k -> new Slot());
+        if (!slot.loaded && seed.containsKey(id)) {
+          slot.available = seed.get(id);
+          slot.loaded = true;
+        }
+        if (!slot.loaded || slot.available < qty) shortIds.add(id);
+      });
+      if (!shortIds.isEmpty()) return shortIds;
+
+      qtyById.forEach((id, qty) -> slots.get(id).available -= qty);
+    } finally {
+      locks.forEach(ReentrantLock::unlock);
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          settle(qtyById, status == STATUS_COMMITTED);
+        }
+      });
+    } else {
+      settle(qtyById, true);
+    }
+    return List.of();
+  }
+
+  /**
+   * Writes pending decrements in batches of at most flush-batch-size rows.
+   *
+   * @return number of product rows written
+   */
+  public int flush() {
+    flushLock.lock();
+    try {
+      int written = 0;
+      Map<Long, Integer> batch = new HashMap<>();
+      for (var e : slots.entrySet()) {
+        var lock = stripe(e.getKey());
+        lock.lock();
+        try {
+          var slot = e.getValue();
+          if (slot.pending > 0) {
+            batch.put(e.getKey(), slot.pending);
+            slot.pending = 0;
+          }
+        } finally {
+          lock.unlock();
+        }
+        if (batch.size() >= flushBatchSize) {
+          written += write(batch);
+          batch = new HashMap<>();
+        }
+      }
+      return written + write(batch);
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /** Admitted stock for a product as the ledger sees it, or null before its first reservation. */
+  public Integer available(Long productId) {
+    var lock = stripe(productId);
+    lock.lock();
+    try {
+      var slot = slots.get(productId);
+      return slot == null || !slot.loaded ? null : slot.available;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void settle(Map<Long, Integer> qtyById, boolean committed) {
+    var locks = lockAll(qtyById.keySet());
+    try {
+      qtyById.forEach((id, qty) -> {
+        var slot = slots.get(id);
+        if (committed) slot.pending += qty; else slot.available += qty;
+      });
+    } finally {
+      locks.forEach(ReentrantLock::unlock);
+    }
+  }
+
+  private int write(Map<Long, Integer> batch) {
+    if (batch.isEmpty()) return 0;
+    try {
+      tx.executeWithoutResult(status -> stockRepo.applyStockDecrements(batch));
+      return batch.size();
+    } catch (RuntimeException ex) {
+      // the batch transaction rolled back, so none of it applied: hand it all back for the next flush
+      batch.forEach((id, qty) -> {
+        var lock = stripe(id);
+        lock.lock();
+        try {
+          slots.get(id).pending += qty;
+        } finally {
+          lock.unlock();
+        }
+      });
+      throw ex;
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException ex) {
+      log.warn("Stock ledger flush failed, will retry", ex);
+    }
+  }
+
+  private List<ReentrantLock> lockAll(Collection<Long> ids) {
+    var indexes = new TreeSet<Integer>();
+    ids.forEach(id -> indexes.add(stripeIndex(id)));
+    List<ReentrantLock> held = new ArrayList<>(indexes.size());
+    for (int i : indexes) {
+      stripes[i].lock();
+      held.add(stripes[i]);
+    }
+    return held;
+  }
+
+  private ReentrantLock stripe(Long id) {
+    return stripes[stripeIndex(id)];
+  }
+
+  private int stripeIndex(Long id) {
+    int h = id.hashCode();
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
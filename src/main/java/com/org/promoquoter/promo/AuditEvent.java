@@ -0,0 +1,31 @@
+package com.org.promoquoter.promo;
+
+import com.org.promoquoter.entities.PromotionType;
+
+/**
+ * One audit trail entry, kept structured while pricing and rendered to text only when read:
+ * - A discount event references the rule, the def and the line it discounted, plus the amount in cents.
+ * - A free-form event (message != null) carries its text as-is.
+ */
+public record AuditEvent(PromotionRule rule, PromotionDef def, CartLine line, long discountCents, String message) {
+
+  public static AuditEvent discount(PromotionRule rule, PromotionDef def, CartLine line, long discountCents) {
+    return new AuditEvent(rule, def, line, discountCents, null);
+  }
+
+  public static AuditEvent text(String message) {
+    return new AuditEvent(null, null, null, 0, message);
+  }
+
+  public PromotionType type() {
+    return def == null ? null : def.type();
+  }
+
+  public Long promoId() {
+    return def == null ? null : def.id();
+  }
+
+  public String render() {
+    return message != null ? message : rule.describe(def, line, discountCents);
+  }
+}
@@ -1,8 +1,5 @@
 package com.org.promoquoter.promo;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
 import org.springframework.stereotype.Component;
 
 import com.org.promoquoter.entities.PromotionType;
@@ -10,9 +7,14 @@ import com.org.promoquoter.entities.PromotionType;
 @Component
 public class BuyXGetYRule implements PromotionRule {
 
-  @Override 
-  public boolean supports(PromotionDef def) {
-    return def.type()== PromotionType.BUY_X_GET_Y;
+  @Override
+  public PromotionType type() {
+    return PromotionType.BUY_X_GET_Y;
+  }
+
+  @Override
+  public PromotionKey indexKey(PromotionDef def) {
+    return PromotionKey.product(def.productId());
   }
 
   @Override
@@ -26,13 +28,21 @@ public class BuyXGetYRule implements PromotionRule {
     int block = x + y;
     int free = (qty / block) * y; // standard formula
 
-    BigDecimal discount = line.getUnitPrice().multiply(BigDecimal.valueOf(free)).setScale(2, RoundingMode.HALF_UP);
+    long discount = Money.toCents(Math.multiplyExact(line.unitUnits(), (long) free), line.scale());
 
     if (free>0) {
-      line.addDiscount(discount);
-      ctx.audit("BUY_"+x+"_GET_"+y+" on "+line.getName()+": free="+free+", -"+discount);
+      line.addDiscountCents(discount);
+      ctx.audit(this, def, line, discount);
     }
 
-    return PromotionResult.of("BUY_X_GET_Y", discount);
+    return PromotionResult.of("BUY_X_GET_Y", Money.toDecimal(discount));
+  }
+
+  @Override
+  public String describe(PromotionDef def, CartLine line, long discountCents) {
+    int x = def.buyQty();
+    int y = def.freeQty();
+    int free = (line.getQty() / (x + y)) * y;
+    return "BUY_"+x+"_GET_"+y+" on "+line.getName()+": free="+free+", -"+Money.format(discountCents);
   }
 }
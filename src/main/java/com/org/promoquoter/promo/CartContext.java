@@ -1,41 +1,124 @@
 package com.org.promoquoter.promo;
 
 import java.math.BigDecimal;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
+/**
+ * Mutable pricing state for one quote.
+ * productId -> line and category -> lines indexes are built once at construction,
+ * so rule lookups are O(1) regardless of cart size.
+ * Audit entries are kept as AuditEvents and rendered lazily by auditEntries(); with audit off they are not kept at all.
+ */
 public class CartContext {
   private final List<CartLine> cartLines;
-  private final List<String> audit = new ArrayList<>();
+  private final Map<Long, CartLine> byProduct;
+  private final Map<String, List<CartLine>> byCategory;
+  private final boolean auditEnabled;
+  private final List<AuditEvent> audit;
+  private final List<String> rendered;
 
   public CartContext(List<CartLine> cartLines) {
+    this(cartLines, true);
+  }
+
+  public CartContext(List<CartLine> cartLines, boolean auditEnabled) {
+    this.auditEnabled = auditEnabled;
+    this.audit = new ArrayList<>();
+    this.rendered = renderedView(audit);
     this.cartLines = Objects.requireNonNull(cartLines, "cartLines");
+    this.byProduct = new HashMap<>(cartLines.size() * 2);
+    Map<String, List<CartLine>> categories = new HashMap<>();
+    for (var line : cartLines) {
+      byProduct.putIfAbsent(line.getProductId(), line);   // first line wins for duplicates
+      if (line.getCategory() != null) {
+        categories.computeIfAbsent(line.getCategory(), c -> new ArrayList<>()).add(line);
+      }
+    }
+    this.byCategory = new HashMap<>(categories.size() * 2);
+    categories.forEach((c, lines) -> byCategory.put(c, List.copyOf(lines)));
+  }
+
+  // Shares lines and indexes with the parent, but records audit entries separately
+  private CartContext(CartContext parent) {
+    this.cartLines = parent.cartLines;
+    this.byProduct = parent.byProduct;
+    this.byCategory = parent.byCategory;
+    this.auditEnabled = parent.auditEnabled;
+    this.audit = new ArrayList<>();
+    this.rendered = renderedView(audit);
+  }
+
+  /**
+   * A view over the same lines with its own, empty audit list; used to run promotions concurrently.
+   */
+  CartContext withOwnAudit() {
+    return new CartContext(this);
   }
 
   public List<CartLine> cartLines() { return cartLines; }
 
   public CartLine lineByProduct(Long id) {
-    return cartLines.stream().filter(l -> l.getProductId().equals(id)).findFirst().orElse(null);
+    return byProduct.get(id);
   }
 
 
  /**
-  * Returns all cart lines in the given category.
+  * Returns all cart lines in the given category (shared, unmodifiable).
   */
  public List<CartLine> cartLinesInCategory(String category) {
   if (category == null) return List.of();
-  return cartLines.stream()
-      .filter(l -> Objects.equals(l.getCategory(), category))
-      .toList();
+  return byCategory.getOrDefault(category, List.of());
 }
 
-  public void audit(String msg) { audit.add(msg); }
+  public boolean auditEnabled() { return auditEnabled; }
+
+  public void audit(String msg) {
+    if (auditEnabled) audit.add(AuditEvent.text(msg));
+  }
+
+  /** Records a discount without rendering it; see PromotionRule.describe. */
+  public void audit(PromotionRule rule, PromotionDef def, CartLine line, long discountCents) {
+    if (auditEnabled) audit.add(AuditEvent.discount(rule, def, line, discountCents));
+  }
+
+  public List<AuditEvent> auditEvents() { return audit; }
+
+  /**
+   * Live, read-only view rendering each event on access; the same instance on every call.
+   */
+  public List<String> auditEntries() { return rendered; }
+
+  void auditAll(List<AuditEvent> events) {
+    audit.addAll(events);
+  }
 
-  public List<String> auditEntries() { return audit; }
+  private static List<String> renderedView(List<AuditEvent> events) {
+    return new AbstractList<>() {
+      @Override
+      public String get(int index) {
+        return events.get(index).render();
+      }
+
+      @Override
+      public int size() {
+        return events.size();
+      }
+    };
+  }
+
+  public long totalCents() {
+    long total = 0;
+    for (var line : cartLines) total += line.finalCents();
+    return total;
+  }
 
   public BigDecimal total() {
-    return cartLines.stream().map(CartLine::getFinalSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    return cartLines.isEmpty() ? BigDecimal.ZERO : Money.toDecimal(totalCents());
   }
 
   // Compatibility aliases (needed by PercentOffCategoryRule)
@@ -3,11 +3,12 @@ package com.org.promoquoter.promo;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-
-@Getter
-@RequiredArgsConstructor
+/**
+ * One priced cart line.
+ * Amounts are held as longs at the line's scale (max(2, unitPrice scale)); discounts are
+ * whole cents. The BigDecimal getters are the DTO boundary and keep the historic scales:
+ * original subtotal at the unit price's scale, discount ZERO until discounted, final at 2dp.
+ */
 public class CartLine {
     private final Long productId;
     private final String name;
@@ -15,21 +16,71 @@ public class CartLine {
     private final int qty;
     private final BigDecimal unitPrice;
 
-     public String getCategory() { return category; }
+    private final int scale;
+    private final long unitUnits;
+    private final long originalUnits;
+    private final long centFactor;
 
-    private BigDecimal discount = BigDecimal.ZERO;
+    private long discountCents;
+    private boolean discounted;
 
-    public BigDecimal getOriginalSubtotal() {
-        return unitPrice.multiply(BigDecimal.valueOf(qty));
+    public CartLine(Long productId, String name, String category, int qty, BigDecimal unitPrice) {
+        this.productId = productId;
+        this.name = name;
+        this.category = category;
+        this.qty = qty;
+        this.unitPrice = unitPrice;
+        this.scale = Math.max(Money.CENTS_SCALE, unitPrice.scale());
+        this.unitUnits = Money.toUnits(unitPrice, scale);
+        this.originalUnits = Math.multiplyExact(unitUnits, (long) qty);
+        this.centFactor = Money.pow10(scale - Money.CENTS_SCALE);
+    }
+
+    public Long getProductId() { return productId; }
+
+    public String getName() { return name; }
+
+    public String getCategory() { return category; }
+
+    public int getQty() { return qty; }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+
+    // ---- fixed-point view used by the rules
+
+    public int scale() { return scale; }
+
+    public long unitUnits() { return unitUnits; }
+
+    public long originalUnits() { return originalUnits; }
+
+    public long discountCents() { return discountCents; }
+
+    public long finalCents() {
+        return Money.divHalfUp(originalUnits - discountCents * centFactor, centFactor);
     }
 
+    public void addDiscountCents(long cents) {
+        this.discountCents += cents;
+        this.discounted = true;
+    }
+
+    /** Adds a discount expressed in whole cents (at most 2 decimals). */
     public void addDiscount(BigDecimal d) {
-        this.discount = this.discount.add(d);
+        addDiscountCents(Money.toUnits(d, Money.CENTS_SCALE));
+    }
+
+    // ---- BigDecimal boundary
+
+    public BigDecimal getOriginalSubtotal() {
+        return BigDecimal.valueOf(originalUnits, scale).setScale(unitPrice.scale(), RoundingMode.UNNECESSARY);
+    }
+
+    public BigDecimal getDiscount() {
+        return discounted ? Money.toDecimal(discountCents) : BigDecimal.ZERO;
     }
 
     public BigDecimal getFinalSubtotal() {
-        return getOriginalSubtotal()
-                .subtract(discount)
-                .setScale(2, RoundingMode.HALF_UP);
+        return Money.toDecimal(finalCents());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.org.promoquoter.promo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point helpers for the pricing engine.
+ * Amounts are longs in units of 10^-scale (scale 2 = cents); rounding is HALF_UP,
+ * matching BigDecimal.setScale(2, RoundingMode.HALF_UP) exactly.
+ * BigDecimal is only produced at the DTO boundary via toDecimal().
+ */
+public final class Money {
+
+  public static final int CENTS_SCALE = 2;
+
+  private static final long[] POW10 = new long[19];
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+  }
+
+  private Money() {}
+
+  public static long pow10(int exp) {
+    if (exp < 0 || exp >= POW10.length) throw new ArithmeticException("10^" + exp + " does not fit in a long");
+    return POW10[exp];
+  }
+
+  /** n / d rounded HALF_UP (ties away from zero); d must be positive. */
+  public static long divHalfUp(long n, long d) {
+    long q = n / d;
+    long r = Math.abs(n % d);
+    if (r >= d - r) q += Long.signum(n);
+    return q;
+  }
+
+  /** Converts units at the given scale to whole cents, HALF_UP. */
+  public static long toCents(long units, int scale) {
+    return scale == CENTS_SCALE ? units : divHalfUp(units, pow10(scale - CENTS_SCALE));
+  }
+
+  /** Exact conversion of a decimal to units at the given scale. */
+  public static long toUnits(BigDecimal amount, int scale) {
+    return amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+  }
+
+  /** (units @ scale) * percent / 100, rounded HALF_UP to cents. */
+  public static long percentOfCents(long units, int scale, BigDecimal percent) {
+    try {
+      long p = percent.unscaledValue().longValueExact();
+      int ps = percent.scale();
+      if (ps < 0) { p = Math.multiplyExact(p, pow10(-ps)); ps = 0; }
+      long denominator = Math.multiplyExact(100L, pow10(ps + scale - CENTS_SCALE));
+      return divHalfUp(Math.multiplyExact(units, p), denominator);
+    } catch (ArithmeticException overflow) {
+      return BigDecimal.valueOf(units, scale).multiply(percent).divide(BigDecimal.valueOf(100))
+          .setScale(CENTS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+  }
+
+  public static BigDecimal toDecimal(long cents) {
+    return BigDecimal.valueOf(cents, CENTS_SCALE);
+  }
+
+  public static String format(long cents) {
+    return toDecimal(cents).toPlainString();
+  }
+}
@@ -1,7 +1,6 @@
 package com.org.promoquoter.promo;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 import org.springframework.stereotype.Component;
 
@@ -10,27 +9,36 @@ import com.org.promoquoter.entities.PromotionType;
 @Component
 public class PercentOffCategoryRule implements PromotionRule {
 
-  @Override 
-  public boolean supports(PromotionDef def){
-    return def.type()== PromotionType.PERCENT_OFF_CATEGORY;
+  @Override
+  public PromotionType type() {
+    return PromotionType.PERCENT_OFF_CATEGORY;
+  }
+
+  @Override
+  public PromotionKey indexKey(PromotionDef def) {
+    return PromotionKey.category(def.category());
   }
 
   @Override
   public PromotionResult apply(CartContext ctx, PromotionDef def) {
-    BigDecimal totalDiscount = BigDecimal.ZERO;
+    long totalDiscount = 0;
+    boolean any = false;
     for (var line : ctx.linesInCategory(def.category())) {
 
-      BigDecimal lineDiscount = line.getOriginalSubtotal()
-        .multiply(def.percent())
-        .divide(BigDecimal.valueOf(100))
-        .setScale(2, RoundingMode.HALF_UP);
+      long lineDiscount = Money.percentOfCents(line.originalUnits(), line.scale(), def.percent());
 
-      if (lineDiscount.signum()>0) {
-        line.addDiscount(lineDiscount);
-        ctx.audit("PERCENT_OFF_CATEGORY("+def.percent()+"%) on "+line.getName()+": -"+lineDiscount);
-        totalDiscount = totalDiscount.add(lineDiscount);
+      if (lineDiscount>0) {
+        line.addDiscountCents(lineDiscount);
+        ctx.audit(this, def, line, lineDiscount);
+        totalDiscount += lineDiscount;
+        any = true;
       }
     }
-    return PromotionResult.of("PERCENT_OFF_CATEGORY", totalDiscount);
+    return PromotionResult.of("PERCENT_OFF_CATEGORY", any ? Money.toDecimal(totalDiscount) : BigDecimal.ZERO);
+  }
+
+  @Override
+  public String describe(PromotionDef def, CartLine line, long discountCents) {
+    return "PERCENT_OFF_CATEGORY("+def.percent()+"%) on "+line.getName()+": -"+Money.format(discountCents);
   }
 }
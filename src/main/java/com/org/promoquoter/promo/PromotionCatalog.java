@@ -0,0 +1,123 @@
+package com.org.promoquoter.promo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.org.promoquoter.repositories.PromotionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the current PromotionSnapshot behind a single volatile reference.
+ * - Quotes read current() and never touch the database for promotions.
+ * - refresh() reloads, compiles and swaps in a new snapshot; call it after writes.
+ * - The first snapshot is loaded lazily on first use.
+ * - Writes made by another instance sharing the table are picked up by a background poll every
+ *   refresh-interval (0 = off); a poll that finds the same rows keeps the snapshot and its version,
+ *   so cached quotes survive it.
+ * - Refreshes are serialized with a ReentrantLock rather than synchronized: the reload blocks on the
+ *   database, and a virtual thread blocking inside a monitor would pin its carrier thread.
+ */
+@Slf4j
+@Component
+public class PromotionCatalog {
+
+  private final PromotionRepository promoRepo;
+  private final PromotionFactory factory;
+  private final PromotionPipeline pipeline;
+  private final Duration refreshInterval;
+  private final AtomicLong versions = new AtomicLong();
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  private volatile PromotionSnapshot snapshot;
+  private List<PromotionDef> loaded; // rows behind the snapshot, guarded by refreshLock
+  private ScheduledExecutorService poller;
+
+  public PromotionCatalog(PromotionRepository promoRepo, PromotionFactory factory, PromotionPipeline pipeline,
+                          @Value("${promoquoter.promotion-catalog.refresh-interval:PT30S}") Duration refreshInterval) {
+    this.promoRepo = promoRepo;
+    this.factory = factory;
+    this.pipeline = pipeline;
+    this.refreshInterval = refreshInterval;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (refreshInterval.isZero()) return;
+    poller = Executors.newSingleThreadScheduledExecutor(r -> {
+      var t = new Thread(r, "promotion-catalog-refresh");
+      t.setDaemon(true);
+      return t;
+    });
+    long ms = refreshInterval.toMillis();
+    poller.scheduleWithFixedDelay(this::pollQuietly, ms, ms, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    if (poller != null) {
+      poller.shutdownNow();
+    }
+  }
+
+  public PromotionSnapshot current() {
+    var s = snapshot;
+    return s != null ? s : refresh();
+  }
+
+  public PromotionSnapshot refresh() {
+    refreshLock.lock();
+    try {
+      return swap(load());
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /**
+   * Reloads the promotion rows and swaps in a new snapshot only if they differ from the ones the current
+   * snapshot was compiled from. Before the first snapshot is loaded there is nothing to keep fresh.
+   *
+   * @return the current snapshot, new or not
+   */
+  public PromotionSnapshot refreshIfChanged() {
+    refreshLock.lock();
+    try {
+      var s = snapshot;
+      if (s == null) return current();
+      var defs = load();
+      return defs.equals(loaded) ? s : swap(defs);
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private List<PromotionDef> load() {
+    return promoRepo.findAll().stream().map(factory::fromEntity).toList();
+  }
+
+  private PromotionSnapshot swap(List<PromotionDef> defs) {
+    var next = pipeline.compile(versions.incrementAndGet(), defs);
+    loaded = defs;
+    snapshot = next;
+    return next;
+  }
+
+  private void pollQuietly() {
+    try {
+      if (snapshot != null) refreshIfChanged();
+    } catch (RuntimeException ex) {
+      log.warn("Promotion catalog refresh failed, will retry", ex);
+    }
+  }
+}
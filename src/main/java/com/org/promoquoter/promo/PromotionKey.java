@@ -0,0 +1,16 @@
+package com.org.promoquoter.promo;
+
+/**
+ * Index key a promotion can only match on: a product id or a category.
+ * Exactly one of the two components is set.
+ */
+public record PromotionKey(Long productId, String category) {
+
+  public static PromotionKey product(Long productId) {
+    return new PromotionKey(productId, null);
+  }
+
+  public static PromotionKey category(String category) {
+    return new PromotionKey(null, category);
+  }
+}
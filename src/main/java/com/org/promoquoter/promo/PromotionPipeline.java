@@ -1,39 +1,207 @@
 package com.org.promoquoter.promo;
 
+import java.util.ArrayList;
+import java.math.RoundingMode;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.PromotionSnapshot.BoundPromotion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Applies promotions to a cart:
- * - Injects all PromotionRule beans.
- * - Filters enabled PromotionDef, sorts by priority (asc).
- * - For each def, applies the first supporting rule to the CartContext.
+ * - Injects all PromotionRule beans and resolves them once into a PromotionType dispatch table;
+ *   fails fast when a type has no rule or more than one.
+ * - compile(): filters enabled PromotionDef, sorts by priority (asc) and binds
+ *   each def to its type's rule, producing an indexed PromotionSnapshot.
+ * - run(): applies only the snapshot's candidates for the cart's lines, in priority order.
+ * - Carts with at least parallel-threshold lines are partitioned: candidates whose keys touch a common
+ *   line form one group, groups run concurrently on the common fork-join pool, each in priority order.
+ *   Every promotion audits into its own buffer and buffers are merged back in priority order, so the
+ *   result is identical to the sequential run. Any unkeyed candidate forces the sequential path.
  * - Returns audit entries from the run.
+ * - Times every rule application per PromotionType (promoquoter.promotion.time) and counts the ones that
+ *   actually discounted something (promoquoter.promotion.applications).
+ * - Sampled applications are also fed to the PromotionProfiler per PromotionDef (off by default).
  */
 @Component
 public class PromotionPipeline {
 
-  private final List<PromotionRule> rules;
+  private final Map<PromotionType, PromotionRule> rulesByType;
+  private final int parallelThreshold;
+  private final Map<PromotionType, Timer> timeByType = new EnumMap<>(PromotionType.class);
+  private final Map<PromotionType, Counter> appliedByType = new EnumMap<>(PromotionType.class);
+  private final PromotionProfiler profiler;
+
+  @Autowired
+  public PromotionPipeline(List<PromotionRule> rules,
+                           @Value("${promoquoter.pipeline.parallel-threshold:1000}") int parallelThreshold,
+                           MeterRegistry registry,
+                           PromotionProfiler profiler) {
+    this.rulesByType = dispatchTable(rules);
+    this.parallelThreshold = parallelThreshold;
+    this.profiler = profiler;
+    for (var type : PromotionType.values()) {
+      timeByType.put(type, Timer.builder("promoquoter.promotion.time")
+          .description("Time spent applying promotions of one type")
+          .tag("type", type.name())
+          .register(registry));
+      appliedByType.put(type, Counter.builder("promoquoter.promotion.applications")
+          .description("Promotion applications that discounted at least one line")
+          .tag("type", type.name())
+          .register(registry));
+    }
+  }
+
+  /** Metrics go to a private registry; no profiling. */
+  public PromotionPipeline(List<PromotionRule> rules, int parallelThreshold) {
+    this(rules, parallelThreshold, new SimpleMeterRegistry(), PromotionProfiler.disabled());
+  }
 
+  /** Always sequential. */
   public PromotionPipeline(List<PromotionRule> rules) {
-    this.rules = rules;
+    this(rules, 0);
   }
 
-  public PipelineResult run(CartContext ctx, List<PromotionDef> defs) {
-  defs.stream()
-    .filter(PromotionDef::enabled)                              // keep only enabled promos
-    .sorted(Comparator.comparingInt(PromotionDef::priority))    // lowest priority runs first
-    .forEach(def -> {
-      rules.stream()
-           .filter(r -> r.supports(def))                        // find a rule that can handle def
-           .findFirst()                                         // IMPORTANT: only the first one
-           .ifPresent(rule -> rule.apply(ctx, def));            // apply it to the cart context
+  private static Map<PromotionType, PromotionRule> dispatchTable(List<PromotionRule> rules) {
+    Map<PromotionType, PromotionRule> table = new EnumMap<>(PromotionType.class);
+    for (var rule : rules) {
+      var type = Objects.requireNonNull(rule.type(), () -> "PromotionRule without type: " + rule);
+      var existing = table.putIfAbsent(type, rule);
+      if (existing != null) {
+        throw new IllegalStateException("Ambiguous PromotionRules for " + type + ": "
+          + existing.getClass().getSimpleName() + ", " + rule.getClass().getSimpleName());
+      }
+    }
+    for (var type : PromotionType.values()) {
+      if (!table.containsKey(type)) {
+        throw new IllegalStateException("No PromotionRule registered for " + type);
+      }
+    }
+    return table;
+  }
+
+  public PromotionSnapshot compile(long version, List<PromotionDef> defs) {
+    var bound = defs.stream()
+      .filter(PromotionDef::enabled)                              // keep only enabled promos
+      .sorted(Comparator.comparingInt(PromotionDef::priority))    // lowest priority runs first
+      .map(def -> {
+        var rule = rulesByType.get(def.type());                   // single lookup, no scan
+        return new BoundPromotion(def, rule, rule.indexKey(def));
+      })
+      .toList();
+
+    return new PromotionSnapshot(version, bound);
+  }
+
+  public PipelineResult run(CartContext ctx, PromotionSnapshot snapshot) {
+    var candidates = snapshot.candidates(ctx);
+    var groups = parallelThreshold > 0 && ctx.cartLines().size() >= parallelThreshold && candidates.size() > 1
+        ? conflictGroups(ctx, candidates)
+        : null;
+
+    if (groups == null || groups.size() < 2) {
+      for (var promo : candidates) {
+        apply(ctx, promo);
+      }
+    } else {
+      runGroups(ctx, candidates, groups);
+    }
+    return new PipelineResult(ctx.auditEntries());
+  }
+
+  private void apply(CartContext ctx, BoundPromotion promo) {
+    var type = promo.def().type();
+    long start = System.nanoTime();
+    var result = promo.rule().apply(ctx, promo.def());
+    long nanos = System.nanoTime() - start;
+
+    timeByType.get(type).record(nanos, TimeUnit.NANOSECONDS);
+    var discount = result == null ? null : result.discount();
+    boolean discounted = discount != null && discount.signum() > 0;
+    if (discounted) {
+      appliedByType.get(type).increment();
+    }
+    if (profiler.sample()) {
+      long cents = discounted ? discount.setScale(Money.CENTS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue() : 0;
+      profiler.record(promo.def(), nanos, cents);
+    }
+  }
+
+  private void runGroups(CartContext ctx, List<BoundPromotion> candidates, List<List<Integer>> groups) {
+    var audits = new AtomicReferenceArray<List<AuditEvent>>(candidates.size());
+    groups.parallelStream().forEach(group -> {
+      for (int i : group) {
+        var own = ctx.withOwnAudit();
+        var promo = candidates.get(i);
+        apply(own, promo);
+        audits.set(i, own.auditEvents());
+      }
     });
+    for (int i = 0; i < candidates.size(); i++) {
+      ctx.auditAll(audits.get(i));
+    }
+  }
 
-  return new PipelineResult(ctx.auditEntries());
-}
+  /**
+   * Partitions candidate positions into groups that share no cart line (union-find over the lines each
+   * candidate's key selects). Positions stay ascending, i.e. in priority order, within a group.
+   * Returns null when some candidate is unkeyed and could touch any line.
+   */
+  private static List<List<Integer>> conflictGroups(CartContext ctx, List<BoundPromotion> candidates) {
+    int n = candidates.size();
+    int[] parent = new int[n];
+    Map<CartLine, Integer> owner = new IdentityHashMap<>();
+    for (int i = 0; i < n; i++) {
+      parent[i] = i;
+      var key = candidates.get(i).key();
+      if (key == null) return null;
+      for (var line : touchedLines(ctx, key)) {
+        var first = owner.putIfAbsent(line, i);
+        if (first != null) parent[find(parent, i)] = find(parent, first);
+      }
+    }
+
+    Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < n; i++) {
+      groups.computeIfAbsent(find(parent, i), r -> new ArrayList<>()).add(i);
+    }
+    return List.copyOf(groups.values());
+  }
+
+  private static List<CartLine> touchedLines(CartContext ctx, PromotionKey key) {
+    if (key.productId() == null) return ctx.cartLinesInCategory(key.category());
+    var line = ctx.lineByProduct(key.productId());
+    return line == null ? List.of() : List.of(line);
+  }
+
+  private static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  public PipelineResult run(CartContext ctx, List<PromotionDef> defs) {
+    return run(ctx, compile(0L, defs));
+  }
 
   public record PipelineResult(List<String> audit) {}
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.org.promoquoter.promo;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.org.promoquoter.dto.promotion.PromotionStatsResponse;
+
+/**
+ * Optional per-PromotionDef profiler behind GET /promotions/stats:
+ * - The pipeline asks sample() once per rule application; with sample-rate 0 (the default) that is a
+ *   single final field read and nothing else happens.
+ * - Sampled applications record their duration and discount into the def's RollingHistogram.
+ * - top(n) ranks promotions by sampled p99, then mean; defs with no samples left in range are forgotten.
+ */
+@Component
+public class PromotionProfiler {
+
+  private final boolean enabled;
+  private final double sampleRate;
+  private final long windowNanos;
+  private final int windows;
+  private final ConcurrentHashMap<PromotionDef, RollingHistogram> byDef = new ConcurrentHashMap<>();
+
+  @Autowired
+  public PromotionProfiler(@Value("${promoquoter.promotion-profiler.sample-rate:0}") double sampleRate,
+                           @Value("${promoquoter.promotion-profiler.window:PT1M}") Duration window,
+                           @Value("${promoquoter.promotion-profiler.windows:5}") int windows) {
+    this.sampleRate = Math.min(1.0, Math.max(0.0, sampleRate));
+    this.enabled = this.sampleRate > 0;
+    this.windowNanos = window.toNanos();
+    this.windows = windows;
+  }
+
+  /** Never samples. */
+  public static PromotionProfiler disabled() {
+    return new PromotionProfiler(0, Duration.ofMinutes(1), 1);
+  }
+
+  public boolean sample() {
+    return enabled && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+  }
+
+  public void record(PromotionDef def, long nanos, long discountCents) {
+    byDef.computeIfAbsent(def, d -> new RollingHistogram(windowNanos, windows))
+        .record(nanos, discountCents, System.nanoTime());
+  }
+
+  public List<PromotionStatsResponse> top(int n) {
+    long now = System.nanoTime();
+    // edited or deleted promotions leave their old def behind; forget it once its samples aged out
+    byDef.values().removeIf(h -> h.snapshot(now).count() == 0);
+    return byDef.entrySet().stream()
+        .map(e -> stats(e.getKey(), e.getValue().snapshot(now)))
+        .filter(s -> s.samples() > 0)
+        .sorted(Comparator.comparingDouble(PromotionStatsResponse::p99Micros)
+            .thenComparingDouble(PromotionStatsResponse::meanMicros)
+            .reversed())
+        .limit(Math.max(0, n))
+        .toList();
+  }
+
+  private static PromotionStatsResponse stats(PromotionDef def, RollingHistogram.Snapshot s) {
+    return new PromotionStatsResponse(
+        def.id(),
+        def.name(),
+        def.type(),
+        s.count(),
+        micros(s.mean()),
+        micros(s.percentile(0.50)),
+        micros(s.percentile(0.99)),
+        micros(s.max()),
+        s.count() == 0 ? BigDecimal.ZERO : Money.toDecimal(Math.round((double) s.valueSum() / s.count())));
+  }
+
+  private static double micros(double nanos) {
+    return Math.round(nanos / 100.0) / 10.0;
+  }
+}
@@ -1,19 +1,46 @@
 package com.org.promoquoter.promo;
 
+import com.org.promoquoter.entities.PromotionType;
+
 /** 
  * Contract for pluggable promotion rules. 
  * 
 */
 public interface PromotionRule {
 
+  /**
+   * The promotion type this rule handles; exactly one rule per type.
+   */
+  PromotionType type();
+
   /** 
    * Can this rule handle the given promotion definition? 
    */
-  boolean supports(PromotionDef def);
+  default boolean supports(PromotionDef def) {
+    return def.type() == type();
+  }
 
    /**
     * Apply the rule to the cart and return the outcome
     * (e.g., total discount, audit).
     */
   PromotionResult apply(CartContext ctx, PromotionDef def);
-}
\ No newline at end of file
+
+  /**
+   * Audit text for a discount this rule recorded with CartContext.audit(rule, def, line, cents);
+   * only called when the audit trail is read.
+   */
+  default String describe(PromotionDef def, CartLine line, long discountCents) {
+    return type() + " on " + line.getName() + ": -" + Money.format(discountCents);
+  }
+
+  /**
+   * The key a cart must contain for this def to have any effect, used to index
+   * promotions by product/category. null means "always evaluate".
+   * A keyed rule must only read and modify the lines its key selects (lineByProduct for a product key,
+   * cartLinesInCategory for a category key): the pipeline runs rules with disjoint lines concurrently.
+   */
+  default PromotionKey indexKey(PromotionDef def) {
+    return null;
+  }
+}
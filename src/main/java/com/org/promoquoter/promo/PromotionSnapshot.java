@@ -0,0 +1,88 @@
+package com.org.promoquoter.promo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, versioned view of the promotion catalog used by the quote path:
+ * - Holds only enabled defs, sorted by priority (asc).
+ * - Each def is already bound to the rule that handles it.
+ * - Defs are indexed by their PromotionKey (product/category), so candidates(ctx)
+ *   costs O(cart lines) instead of O(promotions).
+ */
+public final class PromotionSnapshot {
+
+  public static final PromotionSnapshot EMPTY = new PromotionSnapshot(0L, List.of());
+
+  private final long version;
+  private final List<BoundPromotion> promotions;
+  private final List<PromotionDef> defs;
+  private final List<String> names;
+  private final Map<PromotionKey, int[]> byKey;
+  private final int[] unkeyed;
+
+  public PromotionSnapshot(long version, List<BoundPromotion> promotions) {
+    this.version = version;
+    this.promotions = List.copyOf(promotions);
+    // built once here so quotes listing applied promotions do no per-promotion work
+    this.defs = this.promotions.stream().map(BoundPromotion::def).toList();
+    this.names = defs.stream().map(PromotionDef::name).toList();
+
+    Map<PromotionKey, List<Integer>> index = new HashMap<>();
+    List<Integer> always = new ArrayList<>();
+    for (int i = 0; i < this.promotions.size(); i++) {
+      var key = this.promotions.get(i).key();
+      if (key == null) always.add(i);
+      else index.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+    }
+    this.byKey = new HashMap<>();
+    index.forEach((k, v) -> byKey.put(k, toArray(v)));
+    this.unkeyed = toArray(always);
+  }
+
+  public long version() { return version; }
+
+  public List<BoundPromotion> promotions() { return promotions; }
+
+  public List<PromotionDef> defs() { return defs; }
+
+  /** Promotion names in priority order, as reported in appliedPromotions. */
+  public List<String> names() { return names; }
+
+  /**
+   * Promotions that can match the cart's lines, merged back in priority order.
+   */
+  public List<BoundPromotion> candidates(CartContext ctx) {
+    if (byKey.isEmpty()) return promotions;
+
+    var positions = IntStream.builder();
+    for (int i : unkeyed) positions.add(i);
+
+    var seen = new HashSet<PromotionKey>();
+    for (var line : ctx.cartLines()) {
+      collect(positions, seen, PromotionKey.product(line.getProductId()));
+      if (line.getCategory() != null) collect(positions, seen, PromotionKey.category(line.getCategory()));
+    }
+    return positions.build().sorted().distinct().mapToObj(promotions::get).toList();
+  }
+
+  private void collect(IntStream.Builder positions, HashSet<PromotionKey> seen, PromotionKey key) {
+    if (!seen.add(key)) return;
+    var hits = byKey.get(key);
+    if (hits != null) for (int i : hits) positions.add(i);
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  public record BoundPromotion(PromotionDef def, PromotionRule rule, PromotionKey key) {
+    public BoundPromotion(PromotionDef def, PromotionRule rule) {
+      this(def, rule, null);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.org.promoquoter.promo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free latency histogram over a rolling time range:
+ * - The range is split into `windows` slots of `windowNanos` each; a slot is replaced wholesale (one CAS)
+ *   when the first sample of a newer window lands on it, so old samples age out without a reset pass.
+ * - Buckets are log-linear: four per power of two, i.e. values are kept to within 25%.
+ * - Alongside the buckets each slot keeps a count, a sum, a max and the sum of a second value (the
+ *   discount given), all as plain atomics. A writer racing a rollover may land in the retired slot;
+ *   that sample is dropped, which is fine for sampled profiling.
+ */
+public class RollingHistogram {
+
+  private static final int SUB_BUCKETS = 4;
+  private static final int BUCKETS = 64 * SUB_BUCKETS;
+  private static final int COUNT = BUCKETS;
+  private static final int SUM = BUCKETS + 1;
+  private static final int MAX = BUCKETS + 2;
+  private static final int VALUE_SUM = BUCKETS + 3;
+
+  private record Window(long epoch, AtomicLongArray cells) {
+    Window(long epoch) {
+      this(epoch, new AtomicLongArray(BUCKETS + 4));
+    }
+  }
+
+  private final long windowNanos;
+  private final AtomicReferenceArray<Window> windows;
+
+  public RollingHistogram(long windowNanos, int windows) {
+    if (windowNanos <= 0 || windows <= 0) throw new IllegalArgumentException("window and windows must be positive");
+    this.windowNanos = windowNanos;
+    this.windows = new AtomicReferenceArray<>(windows);
+  }
+
+  public void record(long nanos, long value, long nowNanos) {
+    long v = Math.max(0, nanos);
+    var cells = window(nowNanos / windowNanos).cells();
+    cells.incrementAndGet(bucket(v));
+    cells.incrementAndGet(COUNT);
+    cells.addAndGet(SUM, v);
+    cells.accumulateAndGet(MAX, v, Math::max);
+    cells.addAndGet(VALUE_SUM, value);
+  }
+
+  private Window window(long epoch) {
+    int slot = (int) Math.floorMod(epoch, (long) windows.length());
+    while (true) {
+      var w = windows.get(slot);
+      if (w != null && w.epoch() >= epoch) return w;
+      var fresh = new Window(epoch);
+      if (windows.compareAndSet(slot, w, fresh)) return fresh;
+    }
+  }
+
+  /** Merges every slot still inside the range ending at nowNanos. */
+  public Snapshot snapshot(long nowNanos) {
+    long current = nowNanos / windowNanos;
+    long[] buckets = new long[BUCKETS];
+    long count = 0, sum = 0, max = 0, valueSum = 0;
+    for (int i = 0; i < windows.length(); i++) {
+      var w = windows.get(i);
+      if (w == null || w.epoch() <= current - windows.length() || w.epoch() > current) continue;
+      var cells = w.cells();
+      for (int b = 0; b < BUCKETS; b++) buckets[b] += cells.get(b);
+      count += cells.get(COUNT);
+      sum += cells.get(SUM);
+      max = Math.max(max, cells.get(MAX));
+      valueSum += cells.get(VALUE_SUM);
+    }
+    return new Snapshot(buckets, count, sum, max, valueSum);
+  }
+
+  static int bucket(long v) {
+    if (v < SUB_BUCKETS) return (int) v;
+    int msb = 63 - Long.numberOfLeadingZeros(v);
+    int sub = (int) ((v >>> (msb - 2)) & (SUB_BUCKETS - 1));
+    return msb * SUB_BUCKETS + sub;
+  }
+
+  // Largest value that maps to the bucket
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) return bucket;
+    int msb = bucket / SUB_BUCKETS;
+    int sub = bucket % SUB_BUCKETS;
+    if (msb >= 63) return Long.MAX_VALUE;
+    return ((long) (SUB_BUCKETS + sub + 1) << (msb - 2)) - 1;
+  }
+
+  public record Snapshot(long[] buckets, long count, long sum, long max, long valueSum) {
+
+    public double mean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /** Upper bound of the bucket holding the given quantile, capped at the observed max. */
+    public long percentile(double p) {
+      if (count == 0) return 0;
+      long rank = Math.max(1, (long) Math.ceil(count * p));
+      long seen = 0;
+      for (int b = 0; b < buckets.length; b++) {
+        seen += buckets[b];
+        if (seen >= rank) return Math.min(upperBound(b), max);
+      }
+      return max;
+    }
+  }
+}
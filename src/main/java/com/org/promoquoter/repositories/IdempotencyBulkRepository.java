@@ -0,0 +1,19 @@
+package com.org.promoquoter.repositories;
+
+import java.util.function.Consumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Idempotency reads that bypass the persistence context.
+ */
+public interface IdempotencyBulkRepository {
+
+  /**
+   * Hands every stored idempotency key to the sink straight off a forward-only, read-only cursor fetched
+   * in small batches, so seeding never holds a full TTL's worth of keys at once.
+   * Runs in a read-only transaction, which drivers such as PostgreSQL need to fetch by cursor at all.
+   */
+  @Transactional(readOnly = true)
+  void forEachKey(Consumer<String> sink);
+}
@@ -0,0 +1,33 @@
+package com.org.promoquoter.repositories;
+
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * JDBC implementation of {@link IdempotencyBulkRepository}.
+ */
+public class IdempotencyBulkRepositoryImpl implements IdempotencyBulkRepository {
+
+  private static final String SELECT_KEYS_SQL = "SELECT idempotency_key FROM idempotency_record";
+
+  // rows buffered by the driver per round trip while streaming
+  private static final int STREAM_FETCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbc;
+
+  public IdempotencyBulkRepositoryImpl(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  @Override
+  public void forEachKey(Consumer<String> sink) {
+    jdbc.query(con -> {
+      var ps = con.prepareStatement(SELECT_KEYS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(STREAM_FETCH_SIZE);
+      return ps;
+    }, (RowCallbackHandler) rs -> sink.accept(rs.getString(1)));
+  }
+}
@@ -1,9 +1,26 @@
 package com.org.promoquoter.repositories;
 
+import java.time.OffsetDateTime;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.org.promoquoter.entities.IdempotencyRecord;
 
 @Repository
-public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, String> { }
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, String>, IdempotencyBulkRepository {
+
+  /**
+   * Deletes at most {@code limit} records created before {@code cutoff}; callers loop until it returns 0.
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM idempotency_record WHERE idempotency_key IN ("
+      + "SELECT idempotency_key FROM idempotency_record WHERE created_at < :cutoff LIMIT :limit)",
+      nativeQuery = true)
+  int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,33 @@
+package com.org.promoquoter.repositories;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.org.promoquoter.entities.Product;
+
+/**
+ * Bulk product reads and writes that bypass the persistence context.
+ */
+public interface ProductBulkRepository {
+
+  /**
+   * Inserts new products in one JDBC batch at version 0; ids come from the identity column and are
+   * not read back. Joins the caller's transaction.
+   *
+   * @param products unsaved products (id and version are ignored)
+   * @return number of rows inserted
+   */
+  int insertAll(List<Product> products);
+
+  /**
+   * Hands every product (optionally only one category) to the sink in ascending id order, straight off a
+   * forward-only, read-only cursor fetched in small batches; rows are detached and never accumulate.
+   * Runs in a read-only transaction, which drivers such as PostgreSQL need to fetch by cursor at all.
+   *
+   * @param category category to keep, or null for all products
+   */
+  @Transactional(readOnly = true)
+  void forEachProduct(String category, Consumer<Product> sink);
+}
@@ -0,0 +1,67 @@
+package com.org.promoquoter.repositories;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.org.promoquoter.entities.Product;
+
+/**
+ * JDBC implementation of {@link ProductBulkRepository}. Product ids are IDENTITY, which keeps Hibernate
+ * from batching inserts at all; a plain JDBC batch sends the whole chunk in one round trip instead.
+ * Streaming reads map rows by hand so nothing is attached to a persistence context.
+ */
+public class ProductBulkRepositoryImpl implements ProductBulkRepository {
+
+  private static final String INSERT_SQL =
+      "INSERT INTO product (name, category, price, stock, version) VALUES (?, ?, ?, ?, 0)";
+
+  private static final String SELECT_SQL = "SELECT id, name, category, price, stock, version FROM product";
+
+  // rows buffered by the driver per round trip while streaming
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  private final JdbcTemplate jdbc;
+
+  public ProductBulkRepositoryImpl(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  @Override
+  public int insertAll(List<Product> products) {
+    if (products.isEmpty()) return 0;
+
+    List<Object[]> args = new ArrayList<>(products.size());
+    for (var p : products) {
+      args.add(new Object[] { p.getName(), p.getCategory(), p.getPrice(), p.getStock() });
+    }
+    int inserted = 0;
+    for (int count : jdbc.batchUpdate(INSERT_SQL, args)) {
+      // drivers may report SUCCESS_NO_INFO (-2) for batched statements
+      inserted += count < 0 ? 1 : count;
+    }
+    return inserted;
+  }
+
+  @Override
+  public void forEachProduct(String category, Consumer<Product> sink) {
+    var sql = SELECT_SQL + (category == null ? "" : " WHERE category = ?") + " ORDER BY id";
+    jdbc.query(con -> {
+      var ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(STREAM_FETCH_SIZE);
+      if (category != null) ps.setString(1, category);
+      return ps;
+    }, (RowCallbackHandler) rs -> sink.accept(Product.builder()
+        .id(rs.getLong("id"))
+        .name(rs.getString("name"))
+        .category(rs.getString("category"))
+        .price(rs.getBigDecimal("price"))
+        .stock(rs.getInt("stock"))
+        .version(rs.getLong("version"))
+        .build()));
+  }
+}
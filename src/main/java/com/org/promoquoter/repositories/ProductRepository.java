@@ -1,9 +1,19 @@
 package com.org.promoquoter.repositories;
 
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import com.org.promoquoter.entities.Product;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> { }
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository, ProductBulkRepository {
+
+  /** Keyset page: the next products after afterId, by ascending id. */
+  List<Product> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+  /** Keyset page within one category; served by the (category, id) index. */
+  List<Product> findByCategoryAndIdGreaterThanOrderByIdAsc(String category, long afterId, Limit limit);
+}
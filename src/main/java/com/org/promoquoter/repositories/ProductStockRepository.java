@@ -0,0 +1,46 @@
+package com.org.promoquoter.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk stock operations that bypass the persistence context.
+ */
+public interface ProductStockRepository {
+
+  /**
+   * Conditionally decrements stock for every product in one JDBC batch,
+   * {@code UPDATE product SET stock = stock - ? WHERE id = ? AND stock >= ? AND price = ? AND category = ?},
+   * executed in ascending id order so overlapping reservations lock rows in the same order.
+   * A row only moves if it still has the stock and the price/category the order was quoted at.
+   *
+   * @param reservations one entry per distinct product id
+   * @return ids whose row was not updated (short, repriced or missing), in id order
+   * @throws org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException if the driver reports
+   *         any count other than 0 or 1 (e.g. SUCCESS_NO_INFO), since the reservation cannot be confirmed;
+   *         call inside a transaction so it rolls back
+   */
+  List<Long> reserveStock(Collection<StockReservation> reservations);
+
+  /**
+   * Reads the committed pricing columns straight from the table (not the persistence context,
+   * whose entities may predate the batch) and reports which reservations were quoted at stale terms.
+   *
+   * @param reservations reservations rejected by {@link #reserveStock}
+   * @return ids whose current price or category differs from the reservation, in id order
+   */
+  List<Long> findRepriced(Collection<StockReservation> reservations);
+
+  /**
+   * Reads committed stock levels for the given ids; unknown ids are absent from the map.
+   */
+  Map<Long, Integer> findStock(Collection<Long> ids);
+
+  /**
+   * Applies already-admitted decrements unconditionally in one JDBC batch, in ascending id order.
+   *
+   * @param qtyById total quantity to subtract per product id
+   */
+  void applyStockDecrements(Map<Long, Integer> qtyById);
+}
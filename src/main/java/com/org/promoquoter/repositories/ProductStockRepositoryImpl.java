@@ -0,0 +1,100 @@
+package com.org.promoquoter.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of {@link ProductStockRepository}; joins the caller's transaction.
+ * Also bumps the @Version column so JPA writers holding an older row still fail optimistically.
+ */
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+  private static final String RESERVE_SQL =
+      "UPDATE product SET stock = stock - ?, version = version + 1"
+      + " WHERE id = ? AND stock >= ? AND price = ? AND category = ?";
+
+  private static final String DECREMENT_SQL =
+      "UPDATE product SET stock = stock - ?, version = version + 1 WHERE id = ?";
+
+  private final JdbcTemplate jdbc;
+
+  public ProductStockRepositoryImpl(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  @Override
+  public List<Long> reserveStock(Collection<StockReservation> reservations) {
+    if (reservations.isEmpty()) return List.of();
+
+    List<StockReservation> ordered = new ArrayList<>(reservations);
+    ordered.sort(Comparator.comparing(StockReservation::productId));
+    List<Object[]> args = new ArrayList<>(ordered.size());
+    for (var r : ordered) {
+      args.add(new Object[] { r.qty(), r.productId(), r.qty(), r.price(), r.category() });
+    }
+
+    int[] counts = jdbc.batchUpdate(RESERVE_SQL, args);
+
+    List<Long> failedIds = new ArrayList<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        failedIds.add(ordered.get(i).productId());
+      } else if (counts[i] != 1) {
+        // SUCCESS_NO_INFO (-2) or anything else cannot tell a reservation from a miss: fail closed, and the
+        // caller's transaction rolls back whatever the batch did move
+        throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(RESERVE_SQL, 1, counts[i]);
+      }
+    }
+    return failedIds;
+  }
+
+  @Override
+  public List<Long> findRepriced(Collection<StockReservation> reservations) {
+    if (reservations.isEmpty()) return List.of();
+
+    var byId = new HashMap<Long, StockReservation>();
+    reservations.forEach(r -> byId.put(r.productId(), r));
+    String sql = "SELECT id, price, category FROM product WHERE id IN (" + placeholders(byId.size()) + ") ORDER BY id";
+
+    List<Long> repriced = new ArrayList<>();
+    jdbc.query(sql, rs -> {
+      var r = byId.get(rs.getLong("id"));
+      if (rs.getBigDecimal("price").compareTo(r.price()) != 0 || !rs.getString("category").equals(r.category())) {
+        repriced.add(r.productId());
+      }
+    }, byId.keySet().toArray());
+    return repriced;
+  }
+
+  @Override
+  public Map<Long, Integer> findStock(Collection<Long> ids) {
+    if (ids.isEmpty()) return Map.of();
+
+    Map<Long, Integer> stock = new HashMap<>();
+    jdbc.query("SELECT id, stock FROM product WHERE id IN (" + placeholders(ids.size()) + ")",
+        rs -> { stock.put(rs.getLong("id"), rs.getInt("stock")); }, ids.toArray());
+    return stock;
+  }
+
+  @Override
+  public void applyStockDecrements(Map<Long, Integer> qtyById) {
+    if (qtyById.isEmpty()) return;
+
+    List<Object[]> args = new ArrayList<>(qtyById.size());
+    new TreeMap<>(qtyById).forEach((id, qty) -> args.add(new Object[] { qty, id }));
+    jdbc.batchUpdate(DECREMENT_SQL, args);
+  }
+
+  private static String placeholders(int n) {
+    return String.join(", ", Collections.nCopies(n, "?"));
+  }
+}
@@ -0,0 +1,28 @@
+package com.org.promoquoter.repositories;
+
+import java.util.List;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.org.promoquoter.entities.Promotion;
+
+/**
+ * Whole-set promotion writes that bypass the persistence context.
+ */
+public interface PromotionBulkRepository {
+
+  /** Rows touched by {@link #replaceAll(List)}. */
+  record ReplaceResult(int inserted, int updated, int deleted) {}
+
+  /**
+   * Makes the stored promotions exactly the given set, matched on name: a promotion whose name is already
+   * stored is updated in place (keeping its id), a new name is inserted, and every stored promotion not in
+   * the set is deleted. Runs in one transaction, so other readers see either the old set or the new one.
+   *
+   * @param promotions the complete set; names must be non-null and unique (ids are ignored)
+   * @throws org.springframework.dao.DuplicateKeyException if a concurrent writer inserted one of the new
+   *         names first (promotion names are unique); nothing is written
+   */
+  @Transactional
+  ReplaceResult replaceAll(List<Promotion> promotions);
+}
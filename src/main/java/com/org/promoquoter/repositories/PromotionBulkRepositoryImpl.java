@@ -0,0 +1,83 @@
+package com.org.promoquoter.repositories;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.org.promoquoter.entities.Promotion;
+
+/**
+ * JDBC implementation of {@link PromotionBulkRepository}. One read of the stored (id, name) pairs, then at
+ * most one batch each of updates, inserts and deletes; promotion ids are IDENTITY, which keeps Hibernate
+ * from batching the inserts.
+ */
+public class PromotionBulkRepositoryImpl implements PromotionBulkRepository {
+
+  private static final String SELECT_NAMES_SQL = "SELECT id, name FROM promotion ORDER BY id FOR UPDATE";
+
+  private static final String UPDATE_SQL =
+      "UPDATE promotion SET type = ?, priority = ?, enabled = ?, category = ?, percent = ?,"
+          + " product_id = ?, buy_qty = ?, free_qty = ? WHERE id = ?";
+
+  private static final String INSERT_SQL =
+      "INSERT INTO promotion (type, priority, enabled, category, percent, product_id, buy_qty, free_qty, name)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String DELETE_SQL = "DELETE FROM promotion WHERE id = ?";
+
+  private final JdbcTemplate jdbc;
+
+  public PromotionBulkRepositoryImpl(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  @Override
+  public ReplaceResult replaceAll(List<Promotion> promotions) {
+    // the row locks only serialize replaces over rows that already exist: a concurrent replace can still
+    // insert a new name, and then the unique name constraint fails this batch (DuplicateKeyException) and
+    // the whole transaction rolls back; stored rows without a name fall through to the delete
+    var idsByName = new HashMap<String, Long>();
+    var stale = new ArrayList<Object[]>();
+    jdbc.query(SELECT_NAMES_SQL, (RowCallbackHandler) rs -> {
+      long id = rs.getLong("id");
+      var name = rs.getString("name");
+      if (name == null) {
+        stale.add(new Object[] { id });
+      } else {
+        idsByName.put(name, id);
+      }
+    });
+
+    var updates = new ArrayList<Object[]>();
+    var inserts = new ArrayList<Object[]>();
+    for (var p : promotions) {
+      var id = idsByName.remove(p.getName());
+      (id != null ? updates : inserts).add(columns(p, id != null ? id : p.getName()));
+    }
+    idsByName.values().forEach(id -> stale.add(new Object[] { id }));
+
+    return new ReplaceResult(batch(INSERT_SQL, inserts), batch(UPDATE_SQL, updates), batch(DELETE_SQL, stale));
+  }
+
+  // the last parameter is the WHERE id for updates and the name column for inserts
+  private static Object[] columns(Promotion p, Object last) {
+    return new Object[] {
+        p.getType() == null ? null : p.getType().name(), p.getPriority(), p.isEnabled(), p.getCategory(), p.getPercent(),
+        p.getProductId(), p.getBuyQty(), p.getFreeQty(), last
+    };
+  }
+
+  private int batch(String sql, List<Object[]> args) {
+    if (args.isEmpty()) return 0;
+
+    int rows = 0;
+    for (int count : jdbc.batchUpdate(sql, args)) {
+      // drivers may report SUCCESS_NO_INFO (-2) for batched statements
+      rows += count < 0 ? 1 : count;
+    }
+    return rows;
+  }
+}
@@ -6,5 +6,4 @@ import org.springframework.stereotype.Repository;
 import com.org.promoquoter.entities.Promotion;
 
 @Repository
-public interface PromotionRepository extends JpaRepository<Promotion, Long> { }
-
+public interface PromotionRepository extends JpaRepository<Promotion, Long>, PromotionBulkRepository { }
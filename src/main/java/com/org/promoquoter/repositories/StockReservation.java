@@ -0,0 +1,8 @@
+package com.org.promoquoter.repositories;
+
+import java.math.BigDecimal;
+
+/**
+ * One product's share of an order reservation, guarded by the pricing inputs it was quoted with.
+ */
+public record StockReservation(Long productId, int qty, BigDecimal price, String category) {}
@@ -1,73 +1,184 @@
 package com.org.promoquoter.services;
 
-import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.org.promoquoter.catalog.ProductCatalog;
+import com.org.promoquoter.catalog.ProductView;
 import com.org.promoquoter.dto.cart.ConfirmRequest;
 import com.org.promoquoter.dto.cart.ConfirmResponse;
 import com.org.promoquoter.dto.cart.QuoteRequest;
-import com.org.promoquoter.entities.IdempotencyRecord;
 import com.org.promoquoter.entities.Order;
-import com.org.promoquoter.repositories.IdempotencyRepository;
+import com.org.promoquoter.exception.InsufficientStockException;
+import com.org.promoquoter.exception.PriceChangedException;
+import com.org.promoquoter.idempotency.IdempotencyStore;
+import com.org.promoquoter.idempotency.RequestHash;
+import com.org.promoquoter.inventory.StockLedger;
 import com.org.promoquoter.repositories.OrderRepository;
 import com.org.promoquoter.repositories.ProductRepository;
+import com.org.promoquoter.repositories.StockReservation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class OrderServiceImpl implements OrderService {
   private final ProductRepository productRepo;
   private final OrderRepository orderRepo;
-  private final IdempotencyRepository idemRepo;
+  private final IdempotencyStore idempotency;
   private final QuotationService pricingService;
+  private final ProductCatalog catalog;
+  private final StockLedger ledger;
+  private final TransactionTemplate tx;
+  private final Timer idempotencyLookupTimer;
+  private final Timer quoteTimer;
+  private final Timer reservationTimer;
+  private final Timer orderInsertTimer;
+  private final Timer idempotencyInsertTimer;
+  private final Counter priceConflicts;
+  private final Counter stockConflicts;
+  private final Counter versionConflicts;
 
-  public OrderServiceImpl(ProductRepository productRepo, OrderRepository orderRepo, IdempotencyRepository idemRepo,
-      QuotationService pricingService) {
+  public OrderServiceImpl(ProductRepository productRepo, OrderRepository orderRepo, IdempotencyStore idempotency,
+      QuotationService pricingService, ProductCatalog catalog, StockLedger ledger,
+      PlatformTransactionManager txManager, MeterRegistry registry) {
         this.productRepo = productRepo;
         this.orderRepo = orderRepo;
-        this.idemRepo = idemRepo;
+        this.idempotency = idempotency;
         this.pricingService = pricingService;
+        this.catalog = catalog;
+        this.ledger = ledger;
+        this.tx = new TransactionTemplate(txManager);
+        this.idempotencyLookupTimer = stage(registry, "idempotency_lookup");
+        this.quoteTimer = stage(registry, "quote");
+        this.reservationTimer = stage(registry, "reservation");
+        this.orderInsertTimer = stage(registry, "order_insert");
+        this.idempotencyInsertTimer = stage(registry, "idempotency_insert");
+        this.priceConflicts = conflict(registry, "price_changed");
+        this.stockConflicts = conflict(registry, "insufficient_stock");
+        this.versionConflicts = conflict(registry, "optimistic_lock");
+  }
+
+  private static Timer stage(MeterRegistry registry, String stage) {
+    return Timer.builder("promoquoter.confirm.stage")
+        .description("Time spent in one stage of confirming an order")
+        .tag("stage", stage)
+        .register(registry);
+  }
+
+  // Reservations are conditional (optimistic) updates: a rejected one is a lost race against another writer
+  private static Counter conflict(MeterRegistry registry, String reason) {
+    return Counter.builder("promoquoter.confirm.conflicts")
+        .description("Confirms rejected because a product changed under the quote")
+        .tag("reason", reason)
+        .register(registry);
   }
 
   @Override
-  @Transactional
   public ConfirmResponse confirm(ConfirmRequest req, String idemKey) {
-    // Idempotency check, if key is present just return the previous order
-    if (idemKey != null && !idemKey.isBlank()) {
-      var previousOrder = idemRepo.findById(idemKey).orElse(null);
-      if (previousOrder != null) {
-        var order = orderRepo.findById(previousOrder.getOrderId()).orElseThrow();
-        return new ConfirmResponse(order.getId(), order.getTotal());
-      }
+    try {
+      return confirmOnce(req, idemKey);
+    } catch (OptimisticLockingFailureException ex) {
+      versionConflicts.increment();
+      throw ex;
+    }
+  }
+
+  private ConfirmResponse confirmOnce(ConfirmRequest req, String idemKey) {
+    if (idemKey == null || idemKey.isBlank()) {
+      return tx.execute(status -> place(req, null, null));
     }
 
-    var quote = pricingService.quote(new QuoteRequest(req.items(), req.customerSegment()));
+    // Idempotency check, if key is present just return the previous order (same request only)
+    var requestHash = RequestHash.of(req);
+    var previous = idempotencyLookupTimer.record(() -> idempotency.find(idemKey, requestHash));
+    if (previous.isPresent()) {
+      return previous.get();
+    }
 
-    // Reserve inventory (optimistic locking via @Version on Product)
+    // Concurrent duplicates wait here, outside any transaction, for the owner's committed result
+    return idempotency.singleFlight(idemKey, requestHash, () -> tx.execute(status -> place(req, idemKey, requestHash)));
+  }
+
+  private ConfirmResponse place(ConfirmRequest req, String idemKey, byte[] requestHash) {
+    var priced = quoteTimer.record(() -> pricingService.price(new QuoteRequest(req.items(), req.customerSegment())));
+    var quote = priced.quote();
+
+    // Reserve inventory against the priced snapshot: one conditional decrement per product,
+    // batched in ascending id order, that only applies while stock, price and category still match
+    var qtyById = new TreeMap<Long, Integer>();
     for (var item : req.items()) {
-      var product = productRepo.findById(item.productId()).orElseThrow();
-      if (product.getStock() < item.qty()) {
-        throw new RuntimeException("Insufficient stock for " + product.getName());
-      }
-      product.setStock(product.getStock() - item.qty());
-      productRepo.save(product);
+      qtyById.merge(item.productId(), item.qty(), Integer::sum);
     }
+    var reservations = new ArrayList<StockReservation>(qtyById.size());
+    qtyById.forEach((id, qty) -> {
+      var view = priced.products().get(id);
+      reservations.add(new StockReservation(id, qty, view.price(), view.category()));
+    });
+    reservationTimer.record(() -> reserve(reservations, priced.products()));
 
     // Persist order
     var order = Order.builder().total(quote.total()).build();
-    var saved = orderRepo.save(order);
+    var saved = orderInsertTimer.record(() -> orderRepo.save(order));
 
     // Persist idempotency record
-    if (idemKey != null && !idemKey.isBlank()) {
-      var idempotencyRecord = IdempotencyRecord.builder()
-          .idempotencyKey(idemKey)
-          .orderId(saved.getId())
-          .createdAt(OffsetDateTime.now())
-          .requestHash("NA")
-          .build();
-      idemRepo.save(idempotencyRecord);
+    if (idemKey != null) {
+      idempotencyInsertTimer.record(() -> idempotency.record(idemKey, requestHash, saved.getId(), quote.total()));
     }
 
     return new ConfirmResponse(saved.getId(), quote.total());
   }
+
+  private void reserve(List<StockReservation> reservations, Map<Long, ProductView> quoted) {
+    if (ledger.isEnabled()) {
+      reserveInLedger(reservations, quoted);
+    } else {
+      var failedIds = productRepo.reserveStock(reservations);
+      if (!failedIds.isEmpty()) {
+        throw reservationFailure(failedIds, reservations, quoted);
+      }
+    }
+  }
+
+  // Hot-SKU mode: the ledger never reads the row, so the quoted terms are checked against the committed
+  // price and category first; the catalog the quote was priced from cannot catch a repricing it has not seen
+  private void reserveInLedger(List<StockReservation> reservations, Map<Long, ProductView> quoted) {
+    var repricedIds = productRepo.findRepriced(reservations);
+    if (!repricedIds.isEmpty()) {
+      catalog.invalidate(repricedIds); // the next quote must not reuse the stale views
+      priceConflicts.increment();
+      throw new PriceChangedException(repricedIds, names(repricedIds, quoted));
+    }
+    var shortIds = ledger.reserve(reservations);
+    if (!shortIds.isEmpty()) {
+      stockConflicts.increment();
+      throw new InsufficientStockException(shortIds, names(shortIds, quoted));
+    }
+  }
+
+  // Failure path only: tell a repricing (stale quote) apart from a plain stock shortfall
+  private RuntimeException reservationFailure(List<Long> failedIds, List<StockReservation> reservations,
+      Map<Long, ProductView> quoted) {
+    var rejected = reservations.stream().filter(r -> failedIds.contains(r.productId())).toList();
+    var repricedIds = productRepo.findRepriced(rejected);
+    if (!repricedIds.isEmpty()) {
+      catalog.invalidate(repricedIds); // the next quote must not reuse the stale views
+      priceConflicts.increment();
+      return new PriceChangedException(repricedIds, names(repricedIds, quoted));
+    }
+    stockConflicts.increment();
+    return new InsufficientStockException(failedIds, names(failedIds, quoted));
+  }
+
+  private static List<String> names(List<Long> ids, Map<Long, ProductView> quoted) {
+    return ids.stream().map(id -> quoted.get(id).name()).toList();
+  }
 }
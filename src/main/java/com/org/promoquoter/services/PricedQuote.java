@@ -0,0 +1,17 @@
+package com.org.promoquoter.services;
+
+import java.util.Map;
+
+import com.org.promoquoter.catalog.ProductView;
+import com.org.promoquoter.dto.cart.QuoteResponse;
+
+/**
+ * Internal quote result: the priced response plus the product views it was priced from,
+ * so confirm can reserve against exactly what the customer was quoted.
+ */
+public record PricedQuote(QuoteResponse quote, Map<Long, ProductView> products) {
+
+  public PricedQuote {
+    products = Map.copyOf(products);
+  }
+}
@@ -1,5 +1,12 @@
 package com.org.promoquoter.services;
 
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.org.promoquoter.dto.cart.BatchQuoteRequest;
+import com.org.promoquoter.dto.cart.BatchQuoteResponse;
+import com.org.promoquoter.dto.cart.QuoteField;
 import com.org.promoquoter.dto.cart.QuoteRequest;
 import com.org.promoquoter.dto.cart.QuoteResponse;
 
@@ -14,5 +21,47 @@ public interface QuotationService {
      * @param req the quote request containing cart items and optional customer segment
      * @return the computed quote response with item breakdowns, applied promotions, and totals
      */
-    QuoteResponse quote(QuoteRequest req);
+    default QuoteResponse quote(QuoteRequest req) {
+        return quote(req, QuoteField.ALL);
+    }
+
+    /**
+     * As {@link #quote(QuoteRequest)}, computing only the requested sections; the others are null.
+     *
+     * @param req the quote request containing cart items and optional customer segment
+     * @param fields the response sections to compute
+     * @return the computed quote response
+     */
+    QuoteResponse quote(QuoteRequest req, Set<QuoteField> fields);
+
+    /**
+     * Internal variant of {@link #quote(QuoteRequest)} that also returns the product views used for pricing.
+     * Only the total is computed.
+     *
+     * @param req the quote request containing cart items and optional customer segment
+     * @return the quote response together with the priced product snapshot, keyed by product id
+     */
+    PricedQuote price(QuoteRequest req);
+
+    /**
+     * Quotes many carts against one product load and one promotion snapshot.
+     *
+     * @param req the carts to price
+     * @param fields the response sections to compute for every cart
+     * @return one result per cart, in request order; a cart that cannot be priced carries an error instead
+     */
+    BatchQuoteResponse quoteBatch(BatchQuoteRequest req, Set<QuoteField> fields);
+
+    /**
+     * Quotes an unbounded sequence of carts with bounded memory: carts are pulled in fixed-size chunks,
+     * each chunk is priced from one product load, and its results are pushed to {@code sink} before the
+     * next chunk is read. A slow sink therefore slows down reading (backpressure). One promotion snapshot
+     * is used for the whole stream.
+     *
+     * @param carts the carts to price; a {@code next()} that throws yields an error result for that position
+     * @param fields the response sections to compute for every cart
+     * @param sink receives one result per cart, in source order
+     * @return the number of carts consumed
+     */
+    long quoteStream(Iterator<QuoteRequest> carts, Set<QuoteField> fields, Consumer<BatchQuoteResponse.Result> sink);
 }
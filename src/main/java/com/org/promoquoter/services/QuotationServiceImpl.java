@@ -1,76 +1,235 @@
 package com.org.promoquoter.services;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.org.promoquoter.catalog.ProductCatalog;
+import com.org.promoquoter.catalog.ProductView;
+import com.org.promoquoter.dto.cart.BatchQuoteRequest;
+import com.org.promoquoter.dto.cart.BatchQuoteResponse;
 import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.QuoteField;
 import com.org.promoquoter.dto.cart.QuoteItemResponse;
 import com.org.promoquoter.dto.cart.QuoteRequest;
 import com.org.promoquoter.dto.cart.QuoteResponse;
-import com.org.promoquoter.entities.Product;
 import com.org.promoquoter.promo.CartContext;
 import com.org.promoquoter.promo.CartLine;
-import com.org.promoquoter.promo.PromotionDef;
-import com.org.promoquoter.promo.PromotionFactory;
+import com.org.promoquoter.promo.PromotionCatalog;
 import com.org.promoquoter.promo.PromotionPipeline;
-import com.org.promoquoter.repositories.ProductRepository;
-import com.org.promoquoter.repositories.PromotionRepository;
+import com.org.promoquoter.promo.PromotionSnapshot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
 
 /**
- * - Loads products, constructs CartContext lines.
- * - Maps DB promotions to PromotionDef and runs PromotionPipeline (enabled, priority-ordered).
- * - Applies the first supporting rule per promo, recording audit entries.
+ * - Reads product pricing views from the ProductCatalog near-cache, constructs CartContext lines.
+ * - Runs PromotionPipeline against the current PromotionSnapshot (enabled, priority-ordered, pre-bound).
+ * - Applies the first supporting rule per promo, recording audit events (rendered to text only on serialization).
+ * - Builds only the QuoteFields asked for: an unrequested section (items, appliedPromotions, auditTrail)
+ *   is never computed, and confirm's price() computes the total alone.
  * - Returns per-line breakdown, grand total, promo names, and audit trail.
+ * - price() additionally hands back the product views it priced from, for confirm to reserve against.
+ * - quoteBatch() prices many carts from one product load and one snapshot, in parallel for larger batches;
+ *   each cart is validated on its own and an invalid one gets an error result.
+ * - quote() answers repeated carts from the QuoteCache while the snapshot and every product version match.
+ * - Each stage (products, promotions, cache, pipeline, response) is timed as promoquoter.quote.stage.
+ * - quoteStream() does the same chunk by chunk over an unbounded source, pulling the next chunk only once
+ *   the previous one has been handed to the sink; one snapshot serves the whole stream.
  */
 @Service
 public class QuotationServiceImpl implements QuotationService {
 
-  private final ProductRepository productRepo;
-  private final PromotionRepository promoRepo;
-  private final PromotionFactory factory;
+  // below this many carts the fork/join overhead outweighs the pricing work
+  private static final int PARALLEL_BATCH_THRESHOLD = 8;
+
+  // carts held in memory at once by quoteStream(); also the unit of one product load
+  private static final int STREAM_CHUNK_SIZE = 256;
+
+  private static final Set<QuoteField> TOTAL_ONLY = Collections.unmodifiableSet(EnumSet.of(QuoteField.TOTAL));
+
+  private final ProductCatalog products;
+  private final PromotionCatalog catalog;
   private final PromotionPipeline pipeline;
+  private final QuoteCache quotes;
+  private final Validator validator;
+  private final Timer productsTimer;
+  private final Timer promotionsTimer;
+  private final Timer cacheTimer;
+  private final Timer pipelineTimer;
+  private final Timer responseTimer;
 
-  public QuotationServiceImpl(ProductRepository productRepo,
-                               PromotionRepository promoRepo,
-                               PromotionFactory factory,
-                               PromotionPipeline pipeline) {
-    this.productRepo = productRepo;
-    this.promoRepo = promoRepo;
-    this.factory = factory;
+  public QuotationServiceImpl(ProductCatalog products,
+                               PromotionCatalog catalog,
+                               PromotionPipeline pipeline,
+                               QuoteCache quotes,
+                               Validator validator,
+                               MeterRegistry registry) {
+    this.products = products;
+    this.catalog = catalog;
     this.pipeline = pipeline;
+    this.quotes = quotes;
+    this.validator = validator;
+    this.productsTimer = stage(registry, "products");
+    this.promotionsTimer = stage(registry, "promotions");
+    this.cacheTimer = stage(registry, "cache");
+    this.pipelineTimer = stage(registry, "pipeline");
+    this.responseTimer = stage(registry, "response");
+  }
+
+  private static Timer stage(MeterRegistry registry, String stage) {
+    return Timer.builder("promoquoter.quote.stage")
+        .description("Time spent in one stage of pricing a cart")
+        .tag("stage", stage)
+        .register(registry);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public QuoteResponse quote(QuoteRequest req, Set<QuoteField> fields) {
+    var map = loadProducts(req);
+    var snapshot = promotionsTimer.record(catalog::current);
+    var key = quotes.key(req, fields, snapshot.version());
+    var cached = cacheTimer.record(() -> quotes.get(key, map));
+    if (cached != null) return cached;
+
+    var response = price(req, map, snapshot, fields).quote();
+    quotes.put(key, map, response);
+    return response;
   }
 
+  // confirm only reads the total
   @Override
   @Transactional(readOnly = true)
-  public QuoteResponse quote(QuoteRequest req) {
+  public PricedQuote price(QuoteRequest req) {
+    return price(req, TOTAL_ONLY);
+  }
+
+  private PricedQuote price(QuoteRequest req, Set<QuoteField> fields) {
+    var map = loadProducts(req);
+    return price(req, map, promotionsTimer.record(catalog::current), fields);
+  }
 
-    var products = productRepo.findAllById(
+  private Map<Long, ProductView> loadProducts(QuoteRequest req) {
+    return productsTimer.record(() -> products.getAll(
         req.items().stream().map(CartItem::productId).toList()
-    );
+    ));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public BatchQuoteResponse quoteBatch(BatchQuoteRequest req, Set<QuoteField> fields) {
+    // carts are validated one by one, so an invalid cart fails its own result instead of the whole batch
+    var carts = new ArrayList<QuoteRequest>(req.carts().size());
+    var invalid = new HashMap<Integer, String>();
+    for (var cart : req.carts()) {
+      var error = violations(cart);
+      if (error != null) invalid.put(carts.size(), error);
+      carts.add(error == null ? cart : null);
+    }
+
+    // one product load for the union of ids, one snapshot for every cart
+    var map = products.getAll(productIds(carts));
+    return new BatchQuoteResponse(priceAll(carts, 0, invalid, map, catalog.current(), fields));
+  }
+
+  private String violations(QuoteRequest cart) {
+    if (cart == null) return "cart: must not be null";
+    var violations = validator.validate(cart);
+    if (violations.isEmpty()) return null;
+    return violations.stream()
+        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  // Deliberately not @Transactional: a stream can run for hours, each chunk's product load is its own short read
+  @Override
+  public long quoteStream(Iterator<QuoteRequest> carts, Set<QuoteField> fields, Consumer<BatchQuoteResponse.Result> sink) {
+    var snapshot = catalog.current();
+    long offset = 0;
+    while (carts.hasNext()) {
+      var chunk = new ArrayList<QuoteRequest>(STREAM_CHUNK_SIZE);
+      var unreadable = new HashMap<Integer, String>();
+      while (chunk.size() < STREAM_CHUNK_SIZE && carts.hasNext()) {
+        try {
+          chunk.add(carts.next());
+        } catch (RuntimeException ex) {
+          unreadable.put(chunk.size(), ex.getMessage());
+          chunk.add(null);
+        }
+      }
+      var map = products.getAll(productIds(chunk));
+      priceAll(chunk, offset, unreadable, map, snapshot, fields).forEach(sink);
+      offset += chunk.size();
+    }
+    return offset;
+  }
 
-    Map<Long, Product> map = new HashMap<>();
-    products.forEach(p -> map.put(p.getId(), p));
+  private static List<Long> productIds(List<QuoteRequest> carts) {
+    return carts.stream()
+        .filter(Objects::nonNull)
+        .flatMap(c -> c.items().stream())
+        .map(CartItem::productId)
+        .toList();
+  }
 
+  // null carts are ones that could not be read or failed validation; they report the matching message instead
+  private List<BatchQuoteResponse.Result> priceAll(List<QuoteRequest> carts, long offset, Map<Integer, String> unreadable,
+                                                   Map<Long, ProductView> map, PromotionSnapshot snapshot,
+                                                   Set<QuoteField> fields) {
+    // pricing is CPU-only from here on (no database access), so carts can fan out across cores
+    var indexes = IntStream.range(0, carts.size());
+    if (carts.size() >= PARALLEL_BATCH_THRESHOLD) {
+      indexes = indexes.parallel();
+    }
+    return indexes.mapToObj(i -> {
+      int index = Math.toIntExact(offset + i);
+      var cart = carts.get(i);
+      if (cart == null) {
+        return BatchQuoteResponse.Result.failed(index, unreadable.get(i));
+      }
+      try {
+        return BatchQuoteResponse.Result.ok(index, price(cart, map, snapshot, fields).quote());
+      } catch (RuntimeException ex) {
+        return BatchQuoteResponse.Result.failed(index, ex.getMessage());
+      }
+    }).toList();
+  }
+
+  private PricedQuote price(QuoteRequest req, Map<Long, ProductView> map, PromotionSnapshot snapshot,
+                           Set<QuoteField> fields) {
     List<CartLine> lines = new ArrayList<>();
     for (var item : req.items()) {
       var p = map.get(item.productId());
       if (p == null) {
         throw new IllegalArgumentException("Product not found: " + item.productId());
       }
-      lines.add(new CartLine(p.getId(), p.getName(), p.getCategory(), item.qty(), p.getPrice()));
+      lines.add(new CartLine(p.id(), p.name(), p.category(), item.qty(), p.price()));
     }
 
-    var ctx = new CartContext(lines);
-    var defs = promoRepo.findAll().stream().map(factory::fromEntity).toList();
-    var pipeRes = pipeline.run(ctx, defs);
+    var ctx = new CartContext(lines, fields.contains(QuoteField.AUDIT_TRAIL));
+    var pipeRes = pipelineTimer.record(() -> pipeline.run(ctx, snapshot));
+    return new PricedQuote(responseTimer.record(() -> response(lines, ctx, pipeRes, snapshot, fields)), map);
+  }
 
-    List<QuoteItemResponse> items = lines.stream().map(l ->
+  // sections nobody asked for are not built at all
+  private static QuoteResponse response(List<CartLine> lines, CartContext ctx, PromotionPipeline.PipelineResult pipeRes,
+                                        PromotionSnapshot snapshot, Set<QuoteField> fields) {
+    List<QuoteItemResponse> items = !fields.contains(QuoteField.ITEMS) ? null : lines.stream().map(l ->
         new QuoteItemResponse(
             l.getProductId(),
             l.getName(),
@@ -82,12 +241,11 @@ public class QuotationServiceImpl implements QuotationService {
         )
     ).toList();
 
-    BigDecimal total = ctx.total();
     return new QuoteResponse(
         items,
-        total,
-        defs.stream().map(PromotionDef::name).toList(),
-        pipeRes.audit()
+        fields.contains(QuoteField.TOTAL) ? ctx.total() : null,
+        fields.contains(QuoteField.APPLIED_PROMOTIONS) ? snapshot.names() : null,
+        fields.contains(QuoteField.AUDIT_TRAIL) ? pipeRes.audit() : null
     );
   }
 }
@@ -0,0 +1,179 @@
+package com.org.promoquoter.services;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.org.promoquoter.catalog.ProductView;
+import com.org.promoquoter.dto.cart.QuoteField;
+import com.org.promoquoter.dto.cart.QuoteRequest;
+import com.org.promoquoter.dto.cart.QuoteResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache of finished QuoteResponses for repeated carts:
+ * - Keyed by a canonical cart (productId/qty pairs + customerSegment), the requested QuoteFields and the
+ *   promotion snapshot version, so publishing a new snapshot makes every older entry unreachable.
+ * - Each entry is tagged with the @Version of every product it was priced from; a lookup whose current
+ *   ProductViews differ on any of them is a miss and the entry is replaced. Those views come from the
+ *   ProductCatalog near-cache, not the database, so this only keeps a cached quote from outliving the view
+ *   it was priced from: writes (reprices, and the version bumps of stock reservations) reach it once the
+ *   catalog reloads the row after its TTL or an invalidation. A cached quote is therefore as stale as the
+ *   catalog allows, no staler; confirm re-checks committed prices regardless.
+ * - Lines are sorted in the key only when the response does not depend on their order (no items, no
+ *   auditTrail), so total-only carts hit across permutations. Carts naming a product twice are not cached:
+ *   pricing gives the first line of a product precedence, so their result depends on line order.
+ * - Bounded by an estimated byte weight; hit/miss/eviction metrics are published as cache.* {cache=quotes}.
+ */
+@Component
+public class QuoteCache implements MeterBinder {
+
+  private static final int ORDER_SENSITIVE = mask(Set.of(QuoteField.ITEMS, QuoteField.AUDIT_TRAIL));
+
+  private record Entry(long[] productVersions, QuoteResponse response) {}
+
+  private final boolean enabled;
+  private final Cache<Key, Entry> cache;
+
+  public QuoteCache(@Value("${promoquoter.quote-cache.enabled:true}") boolean enabled,
+                    @Value("${promoquoter.quote-cache.max-weight:67108864}") long maxWeightBytes,
+                    @Value("${promoquoter.quote-cache.ttl:PT10M}") Duration ttl) {
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxWeightBytes)
+        .weigher((Key k, Entry e) -> weigh(k, e))
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Canonical key for the cart, or null when it cannot be cached.
+   */
+  public Key key(QuoteRequest req, Set<QuoteField> fields, long snapshotVersion) {
+    if (!enabled) return null;
+    var items = req.items();
+    int fieldMask = mask(fields);
+    long[] lines = new long[items.size() * 2];
+    for (int i = 0; i < items.size(); i++) {
+      lines[2 * i] = items.get(i).productId();
+      lines[2 * i + 1] = items.get(i).qty();
+    }
+    long[] sorted = sortedPairs(lines);
+    for (int i = 2; i < sorted.length; i += 2) {
+      if (sorted[i] == sorted[i - 2]) return null;
+    }
+    return new Key((fieldMask & ORDER_SENSITIVE) == 0 ? sorted : lines, req.customerSegment(), fieldMask, snapshotVersion);
+  }
+
+  /**
+   * The cached response for key, if every product it was priced from is still at the same version.
+   */
+  public QuoteResponse get(Key key, Map<Long, ProductView> products) {
+    if (key == null) return null;
+    var entry = cache.getIfPresent(key);
+    if (entry == null) return null;
+    long[] ids = key.lines();
+    for (int i = 0; i < ids.length; i += 2) {
+      var view = products.get(ids[i]);
+      if (view == null || !Objects.equals(view.version(), version(entry.productVersions()[i / 2]))) {
+        cache.invalidate(key);
+        return null;
+      }
+    }
+    return entry.response();
+  }
+
+  public void put(Key key, Map<Long, ProductView> products, QuoteResponse response) {
+    if (key == null) return;
+    long[] ids = key.lines();
+    long[] versions = new long[ids.length / 2];
+    for (int i = 0; i < ids.length; i += 2) {
+      var version = products.get(ids[i]).version();
+      versions[i / 2] = version == null ? Long.MIN_VALUE : version;
+    }
+    cache.put(key, new Entry(versions, response));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, "quotes");
+  }
+
+  private static Long version(long stored) {
+    return stored == Long.MIN_VALUE ? null : stored;
+  }
+
+  private static long[] sortedPairs(long[] lines) {
+    int n = lines.length / 2;
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) order[i] = i;
+    Arrays.sort(order, (a, b) -> Long.compare(lines[2 * a], lines[2 * b]));
+    long[] sorted = new long[lines.length];
+    for (int i = 0; i < n; i++) {
+      sorted[2 * i] = lines[2 * order[i]];
+      sorted[2 * i + 1] = lines[2 * order[i] + 1];
+    }
+    return sorted;
+  }
+
+  private static int mask(Set<QuoteField> fields) {
+    int mask = 0;
+    for (var f : fields) mask |= 1 << f.ordinal();
+    return mask;
+  }
+
+  // Rough retained size in bytes: headers, arrays, per-line item DTOs and per-entry strings
+  private static int weigh(Key key, Entry entry) {
+    long bytes = 96 + 8L * key.lines().length + 8L * entry.productVersions().length;
+    if (key.segment() != null) bytes += 40 + key.segment().length();
+    var r = entry.response();
+    bytes += 64;
+    if (r.items() != null) bytes += 48 + 200L * r.items().size();
+    bytes += strings(r.appliedPromotions(), 48) + strings(r.auditTrail(), 96);
+    return (int) Math.min(Integer.MAX_VALUE, bytes);
+  }
+
+  private static long strings(List<String> list, int each) {
+    return list == null ? 0 : 48 + (long) each * list.size();
+  }
+
+  /** Canonical cart + projection + snapshot version; lines holds productId/qty pairs. */
+  public record Key(long[] lines, String segment, int fields, long snapshotVersion) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key k
+          && snapshotVersion == k.snapshotVersion
+          && fields == k.fields
+          && Arrays.equals(lines, k.lines)
+          && Objects.equals(segment, k.segment);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * (31 * Arrays.hashCode(lines) + Objects.hashCode(segment)) + fields) + Long.hashCode(snapshotVersion);
+    }
+
+    @Override
+    public String toString() {
+      return "Key[lines=" + Arrays.toString(lines) + ", segment=" + segment + ", fields=" + fields
+          + ", snapshotVersion=" + snapshotVersion + "]";
+    }
+  }
+}
@@ -1,7 +1,12 @@
 package com.org.promoquoter.integration.cart;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,7 +16,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -23,9 +30,14 @@ import com.org.promoquoter.dto.cart.ConfirmRequest;
 import com.org.promoquoter.dto.cart.ConfirmResponse;
 import com.org.promoquoter.dto.cart.QuoteRequest;
 import com.org.promoquoter.dto.cart.QuoteResponse;
+import com.org.promoquoter.entities.IdempotencyRecord;
+import com.org.promoquoter.entities.Order;
 import com.org.promoquoter.entities.Product;
 import com.org.promoquoter.entities.Promotion;
 import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.idempotency.IdempotencyStore;
+import com.org.promoquoter.idempotency.RequestHash;
+import com.org.promoquoter.promo.PromotionCatalog;
 import com.org.promoquoter.repositories.IdempotencyRepository;
 import com.org.promoquoter.repositories.OrderRepository;
 import com.org.promoquoter.repositories.ProductRepository;
@@ -42,6 +54,9 @@ class CartFlowIT {
     @Autowired PromotionRepository promotions;
     @Autowired OrderRepository orders;
     @Autowired IdempotencyRepository idems;
+    @Autowired PromotionCatalog catalog;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired IdempotencyStore idempotency;
 
     @BeforeEach
     void cleanup() {
@@ -49,6 +64,7 @@ class CartFlowIT {
         orders.deleteAll();
         promotions.deleteAll();
         products.deleteAll();
+        catalog.refresh();
     }
 
     // ----------- helpers -----------
@@ -60,8 +76,15 @@ class CartFlowIT {
                 .build());
     }
 
+    // Promotions seeded straight through the repository, so republish the snapshot
+    private Promotion seed(Promotion promotion) {
+        var saved = promotions.save(promotion);
+        catalog.refresh();
+        return saved;
+    }
+
     private Promotion newPercentCategory(String name, String category, String percent, Integer priority) {
-        return promotions.save(Promotion.builder()
+        return seed(Promotion.builder()
                 .type(PromotionType.PERCENT_OFF_CATEGORY)
                 .name(name)
                 .priority(priority)
@@ -72,7 +95,7 @@ class CartFlowIT {
     }
 
     private Promotion newBuyXGetY(String name, long productId, int buy, int free, Integer priority) {
-        return promotions.save(Promotion.builder()
+        return seed(Promotion.builder()
                 .type(PromotionType.BUY_X_GET_Y)
                 .name(name)
                 .priority(priority)
@@ -142,6 +165,44 @@ class CartFlowIT {
         assertThat(quote.auditTrail()).isNotEmpty();
     }
 
+    @Test
+    @DisplayName("POST /cart/quote — appliedPromotions lists enabled promotions in priority (application) order, not id order")
+    void quote_appliedPromotions_priorityOrder() throws Exception {
+        var pen = newProduct("Pen", "OFFICE", "2.00", 10);
+        newPercentCategory("Late", "OFFICE", "5", 9);   // lower id, runs last
+        newPercentCategory("Early", "OFFICE", "10", 1);
+        seed(Promotion.builder().type(PromotionType.PERCENT_OFF_CATEGORY).name("Off").priority(0).enabled(false)
+                .category("OFFICE").percent(new BigDecimal("50")).build());
+
+        mvc.perform(post("/cart/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(new QuoteRequest(List.of(new CartItem(pen.getId(), 1)), "REGULAR"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appliedPromotions.length()").value(2))
+                .andExpect(jsonPath("$.appliedPromotions[0]").value("Early"))
+                .andExpect(jsonPath("$.appliedPromotions[1]").value("Late"));
+    }
+
+    @Test
+    @DisplayName("POST /cart/quote/batch — an invalid cart yields its own error result; the valid carts are still quoted")
+    void quoteBatch_invalidCart_perCartError() throws Exception {
+        var pen = newProduct("Pen", "OFFICE", "2.00", 10);
+        var body = """
+        {"carts":[
+          {"items":[{"productId":%d,"qty":3}],"customerSegment":"REGULAR"},
+          {"items":[],"customerSegment":"REGULAR"}
+        ]}
+        """.formatted(pen.getId());
+
+        mvc.perform(post("/cart/quote/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].quote.total").value(6.00))
+                .andExpect(jsonPath("$.results[1].index").value(1))
+                .andExpect(jsonPath("$.results[1].error").value("items: must not be empty"));
+    }
+
     @Test
     @DisplayName("POST /cart/confirm — reserves stock, persists order, stores idempotency record, returns total from quote")
     void confirm_reservesStock_andPersists_withIdempotency() throws Exception {
@@ -213,6 +274,59 @@ class CartFlowIT {
         assertThat(orders.count()).isEqualTo(1); // no extra order created
     }
 
+    @Test
+    @DisplayName("POST /cart/confirm — same Idempotency-Key with a different body is rejected; the hash is stored as 16 bytes")
+    void confirm_idempotencyKeyReusedWithDifferentBody_conflict() throws Exception {
+        var pen = newProduct("Pen", "OFFICE", "1.50", 10);
+
+        mvc.perform(post("/cart/confirm")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "reuse-key")
+                        .content(toJson(new ConfirmRequest(List.of(new CartItem(pen.getId(), 1)), "REGULAR"))))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/cart/confirm")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "reuse-key")
+                        .content(toJson(new ConfirmRequest(List.of(new CartItem(pen.getId(), 5)), "REGULAR"))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Idempotency-Key reuse-key was already used with a different request"));
+
+        assertThat(orders.count()).isEqualTo(1);
+        assertThat(products.findById(pen.getId()).orElseThrow().getStock()).isEqualTo(9);
+        assertThat(idems.findById("reuse-key").orElseThrow().getRequestHash()).hasSize(16);
+    }
+
+    @Test
+    @DisplayName("POST /cart/confirm — concurrent requests with one Idempotency-Key reserve once and share the order")
+    void confirm_concurrentSameKey_singleFlight() throws Exception {
+        var lamp = newProduct("Lamp", "HOME", "30.00", 10);
+        var body = toJson(new ConfirmRequest(List.of(new CartItem(lamp.getId(), 2)), "REGULAR"));
+        var go = new CountDownLatch(1);
+
+        var calls = IntStream.range(0, 8).mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+            try {
+                go.await();
+                var res = mvc.perform(post("/cart/confirm")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header("Idempotency-Key", "burst-key")
+                                .content(body))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                return om.readValue(res.getResponse().getContentAsString(), ConfirmResponse.class);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        })).toList();
+        go.countDown();
+
+        var orderIds = calls.stream().map(f -> f.orTimeout(30, TimeUnit.SECONDS).join().orderId()).distinct().toList();
+
+        assertThat(orderIds).hasSize(1);
+        assertThat(orders.count()).isEqualTo(1);
+        assertThat(products.findById(lamp.getId()).orElseThrow().getStock()).isEqualTo(8);
+    }
+
     @Test
     @DisplayName("POST /cart/confirm — insufficient stock returns a mapped client error and does not persist")
     void confirm_insufficientStock_clientError_noPersist() throws Exception {
@@ -231,6 +345,150 @@ class CartFlowIT {
         assertThat(idems.count()).isZero();
     }
 
+    @Test
+    @DisplayName("POST /cart/confirm — every short product is reported and reserved stock is rolled back")
+    void confirm_multipleShortProducts_reportedTogether_rollsBack() throws Exception {
+        var pen = newProduct("Pen", "OFFICE", "1.00", 10);     // lowest id: decremented before the short rows
+        var ink = newProduct("Ink", "OFFICE", "4.00", 1);
+        var pad = newProduct("Pad", "OFFICE", "2.00", 0);
+
+        var req = new ConfirmRequest(List.of(
+                new CartItem(pad.getId(), 1),
+                new CartItem(pen.getId(), 3),
+                new CartItem(ink.getId(), 2)), "REGULAR");
+
+        mvc.perform(post("/cart/confirm")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                        .andExpect(status().isConflict())
+                        .andExpect(jsonPath("$.error").value("Insufficient stock for Ink, Pad"));
+
+        assertThat(orders.count()).isZero();
+        assertThat(products.findById(pen.getId()).orElseThrow().getStock()).isEqualTo(10);
+        assertThat(products.findById(ink.getId()).orElseThrow().getStock()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("POST /cart/confirm — price changed after quoting is rejected, then confirms at the new price")
+    void confirm_repricedAfterQuote_conflict_thenRequotes() throws Exception {
+        var mug = newProduct("Mug", "HOME", "8.00", 5);
+        var req = new ConfirmRequest(List.of(new CartItem(mug.getId(), 2)), "REGULAR");
+
+        // warm the product cache, then reprice behind its back
+        mvc.perform(post("/cart/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(new QuoteRequest(req.items(), "REGULAR"))))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.total").value(16.00));
+        jdbc.update("UPDATE product SET price = 9.00 WHERE id = ?", mug.getId());
+
+        mvc.perform(post("/cart/confirm")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                        .andExpect(status().isConflict())
+                        .andExpect(jsonPath("$.error").value("Price changed for Mug; please re-quote"));
+
+        assertThat(orders.count()).isZero();
+        assertThat(products.findById(mug.getId()).orElseThrow().getStock()).isEqualTo(5);
+
+        // stale view was evicted, so the retry prices and reserves at 9.00
+        var body = mvc.perform(post("/cart/confirm")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+
+        assertThat(om.readValue(body, ConfirmResponse.class).total()).isEqualByComparingTo("18.00");
+        assertThat(products.findById(mug.getId()).orElseThrow().getStock()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Idempotency purge — removes only records older than the TTL, in batches")
+    void idempotencyPurge_removesExpiredOnly() {
+        var old = OffsetDateTime.now().minusDays(2);
+        for (int i = 0; i < 3; i++) {
+            idems.save(IdempotencyRecord.builder().idempotencyKey("old-" + i).orderId("o").createdAt(old).build());
+        }
+        idems.save(IdempotencyRecord.builder().idempotencyKey("fresh").orderId("o").createdAt(OffsetDateTime.now()).build());
+
+        assertThat(idempotency.purge()).isEqualTo(3);
+        assertThat(idems.findAll()).extracting(IdempotencyRecord::getIdempotencyKey).containsExactly("fresh");
+    }
+
+    @Test
+    @DisplayName("POST /cart/confirm — key recorded by another instance (absent from this bloom filter) replays, no second order")
+    void confirm_keyRecordedElsewhere_replaysStoredOrder() throws Exception {
+        var mug = newProduct("Mug", "HOME", "6.00", 10);
+        var req = new ConfirmRequest(List.of(new CartItem(mug.getId(), 2)), "REGULAR");
+
+        // written by another instance: the row exists, but this process never put the key in its filter
+        var other = orders.save(Order.builder().total(new BigDecimal("12.00")).build());
+        idems.save(IdempotencyRecord.builder().idempotencyKey("shared-key").orderId(other.getId())
+                .requestHash(RequestHash.of(req)).createdAt(OffsetDateTime.now()).build());
+
+        mvc.perform(post("/cart/confirm")
+                        .header("Idempotency-Key", "shared-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(other.getId()));
+
+        assertThat(orders.count()).isEqualTo(1);
+        assertThat(products.findById(mug.getId()).orElseThrow().getStock()).isEqualTo(10); // the rolled-back attempt reserved nothing
+    }
+
+    @Test
+    @DisplayName("Idempotency seeding — keys stream off a read-only cursor instead of one list")
+    void idempotencyKeys_streamedInReadOnlyTransaction() {
+        for (int i = 0; i < 3; i++) {
+            idems.save(IdempotencyRecord.builder().idempotencyKey("seed-" + i).orderId("o").createdAt(OffsetDateTime.now()).build());
+        }
+
+        var keys = new java.util.ArrayList<String>();
+        idems.forEachKey(k -> {
+            assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+            keys.add(k);
+        });
+        assertThat(keys).containsExactlyInAnyOrder("seed-0", "seed-1", "seed-2");
+    }
+
+    @Test
+    @DisplayName("POST /cart/quote/stream — NDJSON in and out, one line per cart in order; bad lines become error lines")
+    void quoteStream_ndjson_perLineResults() throws Exception {
+        var mug = newProduct("Mug", "HOME", "4.00", 5);
+        newPercentCategory("Home10", "HOME", "10", 1);
+
+        var body = new StringBuilder();
+        for (int i = 1; i <= 300; i++) {
+            body.append(toJson(new QuoteRequest(List.of(new CartItem(mug.getId(), i)), "REGULAR"))).append('\n');
+        }
+        body.append("{\"items\":[],\"customerSegment\":\"REGULAR\"}\n");
+        body.append(toJson(new QuoteRequest(List.of(new CartItem(999L, 1)), "REGULAR"))).append('\n');
+
+        var res = mvc.perform(post("/cart/quote/stream")
+                        .contentType("application/x-ndjson")
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        var lines = res.lines().map(l -> {
+            try {
+                return om.readTree(l);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+        assertThat(lines).hasSize(302);
+        for (int i = 0; i < 300; i++) {
+            assertThat(lines.get(i).get("index").asInt()).isEqualTo(i);
+            assertThat(lines.get(i).get("quote").get("total").decimalValue())
+                    .isEqualByComparingTo(new BigDecimal("3.60").multiply(BigDecimal.valueOf(i + 1)));
+        }
+        assertThat(lines.get(300).get("error").asText()).isEqualTo("items: must not be empty");
+        assertThat(lines.get(301).get("error").asText()).isEqualTo("Product not found: 999");
+    }
+
     @Test
     @DisplayName("POST /cart/quote — product missing yields a mapped client error")
     void quote_missingProduct_clientError() throws Exception {
@@ -0,0 +1,113 @@
+package com.org.promoquoter.integration.cart;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.ConfirmRequest;
+import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.inventory.StockLedger;
+import com.org.promoquoter.promo.PromotionCatalog;
+import com.org.promoquoter.repositories.IdempotencyRepository;
+import com.org.promoquoter.repositories.OrderRepository;
+import com.org.promoquoter.repositories.ProductRepository;
+import com.org.promoquoter.repositories.PromotionRepository;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "promoquoter.stock-ledger.enabled=true",
+        "promoquoter.stock-ledger.flush-interval=PT0S" // flushed by hand below
+})
+class StockLedgerIT {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Autowired ProductRepository products;
+    @Autowired PromotionRepository promotions;
+    @Autowired OrderRepository orders;
+    @Autowired IdempotencyRepository idems;
+    @Autowired PromotionCatalog catalog;
+    @Autowired StockLedger ledger;
+    @Autowired JdbcTemplate jdbc;
+
+    @BeforeEach
+    void cleanup() {
+        idems.deleteAll();
+        orders.deleteAll();
+        promotions.deleteAll();
+        products.deleteAll();
+        catalog.refresh();
+    }
+
+    private Product newProduct(String name, String price, int stock) {
+        return products.save(Product.builder()
+                .name(name).category("HOT")
+                .price(new BigDecimal(price)).stock(stock)
+                .build());
+    }
+
+    private String confirm(long productId, int qty) throws Exception {
+        return om.writeValueAsString(new ConfirmRequest(List.of(new CartItem(productId, qty)), "REGULAR"));
+    }
+
+    @Test
+    @DisplayName("POST /cart/confirm — ledger admits in memory, database catches up on flush")
+    void confirm_admittedInLedger_flushedLater() throws Exception {
+        var sku = newProduct("Console", "499.00", 3);
+
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(post("/cart/confirm").contentType(MediaType.APPLICATION_JSON).content(confirm(sku.getId(), 1)))
+                    .andExpect(status().isOk());
+        }
+        mvc.perform(post("/cart/confirm").contentType(MediaType.APPLICATION_JSON).content(confirm(sku.getId(), 1)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Insufficient stock for Console"));
+
+        assertThat(orders.count()).isEqualTo(3);
+        assertThat(ledger.available(sku.getId())).isZero();
+        assertThat(products.findById(sku.getId()).orElseThrow().getStock()).isEqualTo(3); // not flushed yet
+
+        assertThat(ledger.flush()).isEqualTo(1);
+        assertThat(products.findById(sku.getId()).orElseThrow().getStock()).isZero();
+    }
+
+    @Test
+    @DisplayName("POST /cart/confirm — ledger mode rejects an order quoted at a price repriced in the DB behind the cache")
+    void confirm_repricedBehindCache_rejected() throws Exception {
+        var sku = newProduct("Headset", "80.00", 5);
+        mvc.perform(post("/cart/confirm").contentType(MediaType.APPLICATION_JSON).content(confirm(sku.getId(), 1)))
+                .andExpect(status().isOk()); // warms the product catalog at 80.00
+
+        // straight to the table: nothing invalidates the cached view
+        jdbc.update("UPDATE product SET price = ? WHERE id = ?", new BigDecimal("95.00"), sku.getId());
+
+        mvc.perform(post("/cart/confirm").contentType(MediaType.APPLICATION_JSON).content(confirm(sku.getId(), 1)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Price changed for Headset; please re-quote"));
+        assertThat(orders.count()).isEqualTo(1);
+        assertThat(ledger.available(sku.getId())).isEqualTo(4);
+
+        // the rejection dropped the stale view, so a retry is priced and sold at the new price
+        mvc.perform(post("/cart/confirm").contentType(MediaType.APPLICATION_JSON).content(confirm(sku.getId(), 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(95.00));
+    }
+}
@@ -0,0 +1,59 @@
+package com.org.promoquoter.integration.metrics;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.ConfirmRequest;
+import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.repositories.ProductRepository;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class PrometheusEndpointIT {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired ProductRepository products;
+
+    @Test
+    @DisplayName("GET /actuator/prometheus — quote/confirm stage timers, promotion and quote cache metrics are scraped")
+    void prometheus_exposesHotPathMetrics() throws Exception {
+        var p = products.save(Product.builder().name("Scrape Mug").category("HOME")
+                .price(new BigDecimal("4.00")).stock(10).build());
+        var body = om.writeValueAsString(new ConfirmRequest(List.of(new CartItem(p.getId(), 1)), "REGULAR"));
+
+        mvc.perform(post("/cart/quote").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mvc.perform(post("/cart/confirm").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+
+        var scrape = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("promoquoter_quote_stage_seconds_count{stage=\"pipeline\"}")
+                .contains("promoquoter_quote_stage_seconds_bucket{stage=\"products\"")
+                .contains("promoquoter_confirm_stage_seconds_count{stage=\"reservation\"}")
+                .contains("promoquoter_confirm_conflicts_total{reason=\"insufficient_stock\"}")
+                .contains("promoquoter_promotion_time_seconds_count{type=\"BUY_X_GET_Y\"}")
+                .contains("promoquoter_promotion_applications_total{type=\"PERCENT_OFF_CATEGORY\"}")
+                .contains("cache_gets_total{cache=\"quotes\"");
+    }
+}
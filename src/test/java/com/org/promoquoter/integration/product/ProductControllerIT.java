@@ -12,6 +12,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -176,5 +177,110 @@ class ProductControllerIT {
            .andExpect(jsonPath("$[?(@.name=='AA Battery')]").exists())
            .andExpect(jsonPath("$[?(@.name=='USB-C Cable')]").exists());
     }
-}
 
+    @Test
+    @DisplayName("POST /products/import — CSV streams in committed chunks with per-chunk NDJSON progress")
+    void import_csv_chunkedProgress() throws Exception {
+        var csv = new StringBuilder("name,category,price,stock\n");
+        for (int i = 1; i <= 2_500; i++) {
+            csv.append(i == 1_500 ? "" : "Item " + i).append(",BULK,").append(i % 100 + 1).append(".25,").append(i).append('\n');
+        }
+
+        var res = mvc.perform(post("/products/import")
+                        .contentType("text/csv")
+                        .content(csv.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        var lines = res.lines().map(l -> {
+            try {
+                return om.readTree(l);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0).get("imported").asInt()).isEqualTo(1_000);
+        assertThat(lines.get(1).get("failed").get(0).get("row").asLong()).isEqualTo(1_500);
+        assertThat(lines.get(1).get("failed").get(0).get("error").asText()).isEqualTo("name: must not be blank");
+        assertThat(lines.get(2).get("lastRow").asLong()).isEqualTo(2_500);
+        assertThat(lines.get(2).get("totalImported").asLong()).isEqualTo(2_499);
+        assertThat(lines.get(2).get("totalFailed").asLong()).isEqualTo(1);
+
+        assertThat(repo.count()).isEqualTo(2_499);
+        var sample = repo.findAll().stream().filter(p -> p.getName().equals("Item 42")).findFirst().orElseThrow();
+        assertThat(sample.getPrice()).isEqualByComparingTo("43.25");
+        assertThat(sample.getStock()).isEqualTo(42);
+        assertThat(sample.getVersion()).isZero();
+    }
+
+    @Test
+    @DisplayName("POST /products/import — JSON in the POST /products shape is accepted too")
+    void import_json_wrapperShape() throws Exception {
+        mvc.perform(post("/products/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        {"products":[{"name":"Cable","category":"ELEC","price":5.00,"stock":10}]}
+                        """))
+                .andExpect(status().isOk());
+
+        assertThat(repo.findAll()).singleElement().satisfies(p -> assertThat(p.getName()).isEqualTo("Cable"));
+    }
+
+    @Test
+    @DisplayName("GET /products/page — keyset pages by id, optionally within a category, until nextAfterId is null")
+    void page_keyset_walksWholeCategory() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            save("Item " + i, i % 2 == 0 ? "EVEN" : "ODD", "1.00", i);
+        }
+
+        var names = new java.util.ArrayList<String>();
+        Long after = 0L;
+        int pages = 0;
+        while (after != null) {
+            var page = om.readTree(mvc.perform(get("/products/page")
+                            .param("afterId", after.toString()).param("limit", "2").param("category", "EVEN"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(p -> names.add(p.get("name").asText()));
+            after = page.hasNonNull("nextAfterId") ? page.get("nextAfterId").asLong() : null;
+            pages++;
+        }
+
+        assertThat(names).containsExactly("Item 0", "Item 2", "Item 4", "Item 6");
+        assertThat(pages).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("GET /products?category= and /products/stream — rows come off the cursor in id order")
+    void stream_filtersByCategory_inIdOrder() throws Exception {
+        save("B", "KEEP", "2.00", 1);
+        save("X", "DROP", "9.00", 1);
+        save("A", "KEEP", "1.00", 1);
+
+        mvc.perform(get("/products").param("category", "KEEP"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.length()").value(2))
+           .andExpect(jsonPath("$[0].name").value("B"))
+           .andExpect(jsonPath("$[1].name").value("A"))
+           .andExpect(jsonPath("$[1].version").value(0));
+
+        var ndjson = mvc.perform(get("/products/stream"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(ndjson.lines().map(l -> {
+            try {
+                return om.readTree(l).get("name").asText();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        })).containsExactly("B", "X", "A");
+
+        // the cursor is read inside a read-only transaction
+        repo.forEachProduct("DROP", p -> {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+            assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+        });
+    }
+}
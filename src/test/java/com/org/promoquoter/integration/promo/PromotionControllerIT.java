@@ -4,15 +4,19 @@ import java.math.BigDecimal;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.greaterThan;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -20,6 +24,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.org.promoquoter.entities.Promotion;
 import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.PromotionCatalog;
+import com.org.promoquoter.promo.PromotionDef;
 import com.org.promoquoter.repositories.PromotionRepository;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
@@ -29,6 +35,7 @@ class PromotionControllerIT {
     @Autowired MockMvc mvc;
     @Autowired ObjectMapper om;
     @Autowired PromotionRepository repo;
+    @Autowired PromotionCatalog catalog;
 
     @BeforeEach
     void clean() {
@@ -179,4 +186,116 @@ class PromotionControllerIT {
 
         assertThat(repo.count()).isZero();
     }
+
+    @Test
+    @DisplayName("PUT /promotions — replaces the set by name (update in place, insert, delete) and swaps the snapshot")
+    void replace_upsertsAndDeletes_thenSwapsSnapshot() throws Exception {
+        var kept = repo.save(Promotion.builder()
+                .type(PromotionType.PERCENT_OFF_CATEGORY).name("Books").priority(5).enabled(true)
+                .category("BOOKS").percent(new BigDecimal("10")).build());
+        repo.save(Promotion.builder()
+                .type(PromotionType.BUY_X_GET_Y).name("Old B1G1").priority(1).enabled(true)
+                .productId(7L).buyQty(1).freeQty(1).build());
+        long before = catalog.refresh().version();
+
+        String body = """
+        {
+          "promotions": [
+            {"type":"PERCENT_OFF_CATEGORY","name":"Books","priority":2,"enabled":true,"category":"BOOKS","percent":25},
+            {"type":"BUY_X_GET_Y","name":"B2G1 Soda","priority":3,"enabled":true,"productId":111,"buyQty":2,"freeQty":1}
+          ]
+        }
+        """;
+
+        mvc.perform(put("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.inserted").value(1))
+           .andExpect(jsonPath("$.updated").value(1))
+           .andExpect(jsonPath("$.deleted").value(1))
+           .andExpect(jsonPath("$.snapshotVersion").value(greaterThan((int) before)));
+
+        List<Promotion> all = repo.findAll();
+        assertThat(all).extracting(Promotion::getName).containsExactlyInAnyOrder("Books", "B2G1 Soda");
+        Promotion books = all.stream().filter(p -> p.getName().equals("Books")).findFirst().orElseThrow();
+        assertThat(books.getId()).isEqualTo(kept.getId());
+        assertThat(books.getPriority()).isEqualTo(2);
+        assertThat(books.getPercent()).isEqualByComparingTo("25");
+        Promotion soda = all.stream().filter(p -> p.getName().equals("B2G1 Soda")).findFirst().orElseThrow();
+        assertThat(soda.getType()).isEqualTo(PromotionType.BUY_X_GET_Y);
+        assertThat(soda.getProductId()).isEqualTo(111L);
+        assertThat(soda.getCategory()).isNull();
+
+        assertThat(catalog.current().defs()).extracting(PromotionDef::name).containsExactly("Books", "B2G1 Soda");
+    }
+
+    @Test
+    @DisplayName("PUT /promotions — a failing row rolls back the whole set and leaves the snapshot alone")
+    void replace_failure_rollsBackEverything() throws Exception {
+        repo.save(Promotion.builder()
+                .type(PromotionType.PERCENT_OFF_CATEGORY).name("Books").priority(5).enabled(true)
+                .category("BOOKS").percent(new BigDecimal("10")).build());
+        var before = catalog.refresh();
+
+        // "Broken" has no type, which the promotion table rejects; "Books" would have been deleted by then
+        String body = """
+        {
+          "promotions": [
+            {"type":"BUY_X_GET_Y","name":"New","priority":1,"enabled":true,"productId":1,"buyQty":1,"freeQty":1},
+            {"name":"Broken","priority":2,"enabled":true}
+          ]
+        }
+        """;
+
+        mvc.perform(put("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+           .andExpect(status().isConflict());
+
+        assertThat(repo.findAll()).singleElement().satisfies(p -> assertThat(p.getName()).isEqualTo("Books"));
+        assertThat(catalog.current()).isSameAs(before);
+    }
+
+    @Test
+    @DisplayName("PUT /promotions — promotion names are unique, so a racing insert of the same name cannot slip in")
+    void replace_namesUniqueInTable() throws Exception {
+        mvc.perform(put("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                { "promotions": [ {"type":"BUY_X_GET_Y","name":"Only","priority":1,"enabled":true,"productId":1,"buyQty":1,"freeQty":1} ] }
+                """))
+           .andExpect(status().isOk());
+
+        assertThatThrownBy(() -> repo.saveAndFlush(Promotion.builder()
+                .type(PromotionType.BUY_X_GET_Y).name("Only").priority(2).enabled(true).build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(repo.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("POST /promotions — a name that already exists rolls back the whole body and keeps the snapshot in step")
+    void create_duplicateName_rollsBackEverything() throws Exception {
+        repo.save(Promotion.builder()
+                .type(PromotionType.PERCENT_OFF_CATEGORY).name("X").priority(1).enabled(true)
+                .category("BOOKS").percent(new BigDecimal("10")).build());
+        catalog.refresh();
+
+        String body = """
+        {
+          "promotions": [
+            {"type":"BUY_X_GET_Y","name":"NEW","priority":2,"enabled":true,"productId":1,"buyQty":1,"freeQty":1},
+            {"type":"PERCENT_OFF_CATEGORY","name":"X","priority":3,"enabled":true,"category":"TOYS","percent":5}
+          ]
+        }
+        """;
+
+        mvc.perform(post("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+           .andExpect(status().isConflict());
+
+        assertThat(repo.findAll()).extracting(Promotion::getName).containsExactly("X");
+        assertThat(catalog.current().names()).containsExactly("X");
+    }
 }
@@ -0,0 +1,88 @@
+package com.org.promoquoter.unit.catalog;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.org.promoquoter.catalog.ProductCatalog;
+import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.repositories.ProductRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    @Mock ProductRepository productRepo;
+
+    @Captor ArgumentCaptor<Iterable<Long>> idsCaptor;
+
+    ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog(productRepo, 100, Duration.ofMinutes(10));
+    }
+
+    private Product product(long id, String price, long version) {
+        return Product.builder().id(id).name("P" + id).category("C").price(new BigDecimal(price))
+                .stock(5).version(version).build();
+    }
+
+    @Test
+    @DisplayName("getAll(): loads only the misses with one findAllById, then serves hits from memory")
+    void getAll_readThrough() {
+        when(productRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(product(1L, "1.00", 0)))
+                .thenReturn(List.of(product(2L, "2.00", 0)));
+
+        assertThat(catalog.getAll(List.of(1L, 1L))).containsOnlyKeys(1L);
+        var both = catalog.getAll(List.of(1L, 2L, 3L));
+
+        assertThat(both).containsOnlyKeys(1L, 2L);      // unknown id 3 is absent
+        verify(productRepo, times(2)).findAllById(idsCaptor.capture());
+        assertThat(idsCaptor.getAllValues().get(1)).containsExactlyInAnyOrderElementsOf(Set.of(2L, 3L));
+    }
+
+    @Test
+    @DisplayName("observe(): a newer @Version replaces the cached view; an older one never does")
+    void observe_isVersionAware() {
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(1L, "1.00", 5)));
+        catalog.getAll(List.of(1L));
+
+        catalog.observe(product(1L, "9.99", 4));   // stale read
+        assertThat(catalog.getAll(List.of(1L)).get(1L).price()).isEqualByComparingTo("1.00");
+
+        catalog.observe(product(1L, "1.50", 6));   // newer row
+        assertThat(catalog.getAll(List.of(1L)).get(1L).price()).isEqualByComparingTo("1.50");
+
+        verify(productRepo, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    @DisplayName("invalidate(): evicted ids are reloaded from the repository")
+    void invalidate_forcesReload() {
+        when(productRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(product(1L, "1.00", 0)))
+                .thenReturn(List.of(product(1L, "3.00", 0)));
+
+        catalog.getAll(List.of(1L));
+        catalog.invalidate(List.of(1L));
+
+        assertThat(catalog.getAll(List.of(1L)).get(1L).price()).isEqualByComparingTo("3.00");
+        verify(productRepo, times(2)).findAllById(anyIterable());
+    }
+}
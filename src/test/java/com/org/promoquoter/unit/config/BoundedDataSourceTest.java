@@ -0,0 +1,77 @@
+package com.org.promoquoter.unit.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.org.promoquoter.config.BoundedDataSource;
+
+@ExtendWith(MockitoExtension.class)
+class BoundedDataSourceTest {
+
+    @Mock DataSource target;
+    @Mock Connection c1;
+    @Mock Connection c2;
+
+    BoundedDataSource ds;
+
+    @BeforeEach
+    void setUp() {
+        ds = new BoundedDataSource(target, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("getConnection(): at most 'permits' connections open; the next caller times out")
+    void permitsBoundOpenConnections() throws Exception {
+        when(target.getConnection()).thenReturn(c1, c2);
+
+        var first = ds.getConnection();
+        ds.getConnection();
+        assertThat(ds.availablePermits()).isZero();
+
+        assertThatThrownBy(ds::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        first.close(); // a second close must not release a second permit
+        verify(c1, times(2)).close();
+        assertThat(ds.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("getConnection(): a failing target hands the permit back")
+    void targetFailure_releasesPermit() throws Exception {
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        assertThatThrownBy(ds::getConnection).hasMessage("pool exhausted");
+        assertThat(ds.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Connection proxy: calls reach the target connection, exceptions unwrapped")
+    void proxyDelegates() throws Exception {
+        when(target.getConnection()).thenReturn(c1);
+        when(c1.getAutoCommit()).thenReturn(true);
+        when(c1.isReadOnly()).thenThrow(new SQLException("closed"));
+
+        var con = ds.getConnection();
+
+        assertThat(con.getAutoCommit()).isTrue();
+        assertThatThrownBy(con::isReadOnly).isInstanceOf(SQLException.class).hasMessage("closed");
+        assertThat(con).isEqualTo(con).isNotEqualTo(c1);
+    }
+}
@@ -1,14 +1,20 @@
 package com.org.promoquoter.unit.controllers;
 
 import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -25,9 +31,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.org.promoquoter.controllers.CartController;
+import com.org.promoquoter.dto.cart.BatchQuoteRequest;
+import com.org.promoquoter.dto.cart.BatchQuoteResponse;
 import com.org.promoquoter.dto.cart.CartItem;
 import com.org.promoquoter.dto.cart.ConfirmRequest;
 import com.org.promoquoter.dto.cart.ConfirmResponse;
+import com.org.promoquoter.dto.cart.QuoteField;
 import com.org.promoquoter.dto.cart.QuoteItemResponse;
 import com.org.promoquoter.dto.cart.QuoteRequest;
 import com.org.promoquoter.dto.cart.QuoteResponse;
@@ -84,7 +93,7 @@ class CartControllerTest {
 
     @Test
     void quote_ok_200_and_body_matches() throws Exception {
-      when(pricingService.quote(any(QuoteRequest.class))).thenReturn(sampleQuoteRes());
+      when(pricingService.quote(any(QuoteRequest.class), eq(QuoteField.ALL))).thenReturn(sampleQuoteRes());
 
       mvc.perform(post("/cart/quote")
               .contentType(MediaType.APPLICATION_JSON)
@@ -97,7 +106,7 @@ class CartControllerTest {
 
       // verify call + payload
       ArgumentCaptor<QuoteRequest> captor = ArgumentCaptor.forClass(QuoteRequest.class);
-      verify(pricingService).quote(captor.capture());
+      verify(pricingService).quote(captor.capture(), eq(QuoteField.ALL));
       verifyNoMoreInteractions(pricingService, orderService);
 
       QuoteRequest sent = captor.getValue();
@@ -106,6 +115,49 @@ class CartControllerTest {
       assert "VIP".equals(sent.customerSegment());
     }
 
+    @Test
+    void quote_audit_false_drops_only_the_audit_trail() throws Exception {
+      var noAudit = EnumSet.of(QuoteField.ITEMS, QuoteField.TOTAL, QuoteField.APPLIED_PROMOTIONS);
+      when(pricingService.quote(any(QuoteRequest.class), eq(noAudit))).thenReturn(sampleQuoteRes());
+
+      mvc.perform(post("/cart/quote")
+              .param("audit", "false")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(om.writeValueAsString(sampleQuoteReq())))
+          .andExpect(status().isOk());
+
+      verify(pricingService).quote(any(QuoteRequest.class), eq(noAudit));
+      verifyNoMoreInteractions(pricingService, orderService);
+    }
+
+    @Test
+    void quote_fields_projection_passed_and_missing_sections_omitted() throws Exception {
+      when(pricingService.quote(any(QuoteRequest.class), eq(EnumSet.of(QuoteField.TOTAL))))
+          .thenReturn(new QuoteResponse(null, new BigDecimal("33.00"), null, null));
+
+      mvc.perform(post("/cart/quote")
+              .param("fields", "total")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(om.writeValueAsString(sampleQuoteReq())))
+          .andExpect(status().isOk())
+          .andExpect(content().json("{\"total\":33.00}", true));
+
+      verify(pricingService).quote(any(QuoteRequest.class), eq(EnumSet.of(QuoteField.TOTAL)));
+      verifyNoMoreInteractions(pricingService, orderService);
+    }
+
+    @Test
+    void quote_unknown_field_rejected() throws Exception {
+      mvc.perform(post("/cart/quote")
+              .param("fields", "total,discounts")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(om.writeValueAsString(sampleQuoteReq())))
+          .andExpect(status().isConflict())
+          .andExpect(jsonPath("$.error", is("Unknown quote field: discounts; expected one of items, total, appliedPromotions, auditTrail")));
+
+      verifyNoMoreInteractions(pricingService, orderService);
+    }
+
     @Test
     void quote_validation_error_400_on_empty_items() throws Exception {
       var badReq = new QuoteRequest(List.of(), "VIP");
@@ -139,14 +191,14 @@ class CartControllerTest {
 
     @Test
     void quote_500_when_service_throws() throws Exception {
-      when(pricingService.quote(any())).thenThrow(new RuntimeException("boom"));
+      when(pricingService.quote(any(), anySet())).thenThrow(new RuntimeException("boom"));
 
       mvc.perform(post("/cart/quote")
               .contentType(MediaType.APPLICATION_JSON)
               .content(om.writeValueAsString(sampleQuoteReq())))
           .andExpect(status().isConflict());
 
-      verify(pricingService).quote(any());
+      verify(pricingService).quote(any(), anySet());
       verifyNoMoreInteractions(pricingService, orderService);
     }
 
@@ -159,6 +211,116 @@ class CartControllerTest {
     }
   }
 
+  @Nested
+  class QuoteBatch {
+
+    @Test
+    void quoteBatch_ok_200_results_in_order_with_per_cart_errors() throws Exception {
+      when(pricingService.quoteBatch(any(BatchQuoteRequest.class), eq(QuoteField.ALL))).thenReturn(new BatchQuoteResponse(List.of(
+          BatchQuoteResponse.Result.ok(0, sampleQuoteRes()),
+          BatchQuoteResponse.Result.failed(1, "Product not found: 999"))));
+
+      var req = new BatchQuoteRequest(List.of(sampleQuoteReq(), new QuoteRequest(List.of(new CartItem(999L, 1)), "VIP")));
+
+      mvc.perform(post("/cart/quote/batch")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(om.writeValueAsString(req)))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.results", hasSize(2)))
+          .andExpect(jsonPath("$.results[0].quote.total", is(33.00)))
+          .andExpect(jsonPath("$.results[1].error", is("Product not found: 999")));
+
+      verify(pricingService).quoteBatch(any(BatchQuoteRequest.class), eq(QuoteField.ALL));
+      verifyNoMoreInteractions(pricingService, orderService);
+    }
+
+    @Test
+    void quoteBatch_invalid_cart_is_passed_through_for_a_per_cart_error() throws Exception {
+      when(pricingService.quoteBatch(any(BatchQuoteRequest.class), eq(QuoteField.ALL))).thenReturn(new BatchQuoteResponse(List.of(
+          BatchQuoteResponse.Result.ok(0, sampleQuoteRes()),
+          BatchQuoteResponse.Result.failed(1, "items: must not be empty"))));
+
+      var req = new BatchQuoteRequest(List.of(sampleQuoteReq(), new QuoteRequest(List.of(), "VIP")));
+
+      mvc.perform(post("/cart/quote/batch")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(om.writeValueAsString(req)))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.results[1].error", is("items: must not be empty")));
+    }
+
+    @Test
+    void quoteBatch_validation_error_400_on_empty_batch() throws Exception {
+      mvc.perform(post("/cart/quote/batch")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(om.writeValueAsString(new BatchQuoteRequest(List.of()))))
+          .andExpect(status().isBadRequest());
+
+      verifyNoMoreInteractions(pricingService, orderService);
+    }
+  }
+
+  @Nested
+  class QuoteStream {
+
+    @SuppressWarnings("unchecked")
+    private void echoStream() {
+      when(pricingService.quoteStream(any(), anySet(), any())).thenAnswer(inv -> {
+        Iterator<QuoteRequest> carts = inv.getArgument(0);
+        Consumer<BatchQuoteResponse.Result> sink = inv.getArgument(2);
+        int i = 0;
+        for (; carts.hasNext(); i++) {
+          try {
+            var cart = carts.next();
+            sink.accept(BatchQuoteResponse.Result.failed(i, "read " + cart.items().size()));
+          } catch (IllegalArgumentException ex) {
+            sink.accept(BatchQuoteResponse.Result.failed(i, ex.getMessage()));
+          }
+        }
+        return (long) i;
+      });
+    }
+
+    @Test
+    void quoteStream_ok_200_one_line_per_cart_with_invalid_lines_reported() throws Exception {
+      echoStream();
+      var body = om.writeValueAsString(sampleQuoteReq()) + "\n"
+          + "{\"items\":[{\"productId\":1,\"qty\":0}],\"customerSegment\":\"VIP\"}\n"
+          + "{\"items\":\"nope\",\"customerSegment\":\"VIP\"}\n"
+          + om.writeValueAsString(sampleQuoteReq()) + "\n";
+
+      var res = mvc.perform(post("/cart/quote/stream")
+              .contentType("application/x-ndjson")
+              .content(body))
+          .andExpect(status().isOk())
+          .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+          .andReturn().getResponse().getContentAsString();
+
+      var lines = res.lines().toList();
+      assertThat(lines).hasSize(4);
+      assertThat(om.readTree(lines.get(0)).get("error").asText()).isEqualTo("read 2");
+      assertThat(om.readTree(lines.get(1)).get("error").asText()).isEqualTo("items[0].qty: must be greater than 0");
+      assertThat(om.readTree(lines.get(2)).get("error").asText()).startsWith("Unreadable cart:");
+      assertThat(om.readTree(lines.get(3)).get("index").asInt()).isEqualTo(3);
+    }
+
+    @Test
+    void quoteStream_malformed_json_ends_stream_after_error_line() throws Exception {
+      echoStream();
+      var body = om.writeValueAsString(sampleQuoteReq()) + "\n{not json\n" + om.writeValueAsString(sampleQuoteReq()) + "\n";
+
+      var res = mvc.perform(post("/cart/quote/stream")
+              .contentType("application/x-ndjson")
+              .content(body))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+
+      var lines = res.lines().toList();
+      assertThat(lines).hasSize(2);
+      assertThat(om.readTree(lines.get(1)).get("error").asText()).startsWith("Unreadable cart:");
+    }
+  }
+
   @Nested
   class Confirm {
 
@@ -2,12 +2,14 @@ package com.org.promoquoter.unit.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.imports.ProductImporter;
 import com.org.promoquoter.repositories.ProductRepository;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,9 +18,13 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -33,6 +39,7 @@ class ProductControllerTest {
   @Autowired private ObjectMapper om;
 
   @MockitoBean private ProductRepository repo;
+  @MockitoBean private ProductImporter importer;
 
   // -------- Helpers
 
@@ -177,25 +184,34 @@ class ProductControllerTest {
   @Nested
   class GetAllProducts {
 
+    // forEachProduct hands the given rows to the controller's sink, as the cursor would
+    private void streamRows(List<Product> rows) {
+      doAnswer(inv -> {
+        Consumer<Product> sink = inv.getArgument(1);
+        rows.forEach(sink);
+        return null;
+      }).when(repo).forEachProduct(any(), any());
+    }
+
     @Test
     void get_all_returns_empty_list_when_repo_empty() throws Exception {
-      when(repo.findAll()).thenReturn(List.of());
+      streamRows(List.of());
 
       mvc.perform(get("/products"))
           .andExpect(status().isOk())
           .andExpect(content().contentType(MediaType.APPLICATION_JSON))
           .andExpect(jsonPath("$", hasSize(0)));
 
-      verify(repo).findAll();
+      verify(repo).forEachProduct(isNull(), any());
       verifyNoMoreInteractions(repo);
     }
 
     @Test
-    void get_all_returns_products_from_repo() throws Exception {
+    void get_all_streams_products_from_repo_cursor() throws Exception {
       var list = new ArrayList<Product>();
       list.add(product(1L, "Milk", "DAIRY", "2.50", 10));
       list.add(product(2L, "Bread", "BAKERY", "1.50", 15));
-      when(repo.findAll()).thenReturn(list);
+      streamRows(list);
 
       mvc.perform(get("/products"))
           .andExpect(status().isOk())
@@ -204,8 +220,42 @@ class ProductControllerTest {
           .andExpect(jsonPath("$[0].name", is("Milk")))
           .andExpect(jsonPath("$[1].category", is("BAKERY")));
 
-      verify(repo).findAll();
-      verifyNoMoreInteractions(repo);
+      verify(repo).forEachProduct(isNull(), any());
+      verify(repo, never()).findAll();
+    }
+
+    @Test
+    void stream_writes_one_product_per_line_for_category() throws Exception {
+      streamRows(List.of(product(1L, "Milk", "DAIRY", "2.50", 10), product(3L, "Cheese", "DAIRY", "4.00", 2)));
+
+      var body = mvc.perform(get("/products/stream").param("category", "DAIRY"))
+          .andExpect(status().isOk())
+          .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+          .andReturn().getResponse().getContentAsString();
+
+      assertThat(body.lines().toList()).hasSize(2);
+      assertThat(om.readTree(body.lines().toList().get(1)).get("name").asText()).isEqualTo("Cheese");
+      verify(repo).forEachProduct(eq("DAIRY"), any());
+    }
+
+    @Test
+    void page_fetches_one_extra_row_and_returns_next_cursor() throws Exception {
+      when(repo.findByIdGreaterThanOrderByIdAsc(eq(10L), eq(Limit.of(3))))
+          .thenReturn(List.of(product(11L, "A", "X", "1.00", 1), product(12L, "B", "X", "1.00", 1), product(13L, "C", "X", "1.00", 1)));
+      when(repo.findByCategoryAndIdGreaterThanOrderByIdAsc(eq("X"), eq(12L), eq(Limit.of(3))))
+          .thenReturn(List.of(product(13L, "C", "X", "1.00", 1)));
+
+      mvc.perform(get("/products/page").param("afterId", "10").param("limit", "2"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.items", hasSize(2)))
+          .andExpect(jsonPath("$.items[1].id", is(12)))
+          .andExpect(jsonPath("$.nextAfterId", is(12)));
+
+      mvc.perform(get("/products/page").param("afterId", "12").param("limit", "2").param("category", "X"))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.items", hasSize(1)))
+          .andExpect(jsonPath("$.nextAfterId").doesNotExist());
+      verify(repo, never()).findAll();
     }
 
     @Test
@@ -1,30 +1,43 @@
 package com.org.promoquoter.unit.controllers;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.org.promoquoter.controllers.PromotionController;
+import com.org.promoquoter.dto.promotion.PromotionStatsResponse;
 import com.org.promoquoter.entities.Promotion;
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.PromotionCatalog;
+import com.org.promoquoter.promo.PromotionProfiler;
+import com.org.promoquoter.promo.PromotionSnapshot;
+import com.org.promoquoter.repositories.PromotionBulkRepository.ReplaceResult;
 import com.org.promoquoter.repositories.PromotionRepository;
 
 @WebMvcTest(PromotionController.class)
@@ -34,6 +47,9 @@ class PromotionControllerTest {
     @Autowired ObjectMapper om;
 
     @MockitoBean PromotionRepository repo;
+    @MockitoBean PromotionCatalog catalog;
+    @MockitoBean PromotionProfiler profiler;
+    @MockitoBean PlatformTransactionManager txManager;
 
     @Test
     @DisplayName("POST /promotions: saves a single promotion and returns 200 with array payload")
@@ -68,6 +84,7 @@ class PromotionControllerTest {
            .andExpect(jsonPath("$[0].type").value("PERCENT_OFF_CATEGORY"));
 
         verify(repo, times(1)).save(any(Promotion.class));
+        verify(catalog, times(1)).refresh();
     }
 
     @Test
@@ -109,6 +126,7 @@ class PromotionControllerTest {
            .andExpect(jsonPath("$.length()").value(0));
 
         verify(repo, never()).save(any(Promotion.class));
+        verify(catalog, never()).refresh();
     }
 
     @Test
@@ -165,6 +183,8 @@ class PromotionControllerTest {
            .andExpect(status().isConflict());
 
         verify(repo, times(1)).save(any(Promotion.class));
+        verify(txManager).rollback(any());
+        verify(catalog, never()).refresh();
     }
 
     @Test
@@ -175,4 +195,99 @@ class PromotionControllerTest {
            .andExpect(status().isConflict());
         verifyNoInteractions(repo);
     }
+
+    @Test
+    @DisplayName("GET /promotions/stats: returns the profiler's top-N (default 10)")
+    void stats_topN() throws Exception {
+        given(profiler.top(10)).willReturn(List.of(new PromotionStatsResponse(
+                7L, "Slow Sale", PromotionType.PERCENT_OFF_CATEGORY, 42, 350.5, 300.0, 1200.0, 1500.0, new BigDecimal("1.25"))));
+        given(profiler.top(3)).willReturn(List.of());
+
+        mvc.perform(get("/promotions/stats"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.length()").value(1))
+           .andExpect(jsonPath("$[0].promotionId").value(7))
+           .andExpect(jsonPath("$[0].name").value("Slow Sale"))
+           .andExpect(jsonPath("$[0].p99Micros").value(1200.0))
+           .andExpect(jsonPath("$[0].avgDiscount").value(1.25));
+
+        mvc.perform(get("/promotions/stats").param("limit", "3"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.length()").value(0));
+        verifyNoInteractions(repo, catalog);
+    }
+
+    @Test
+    @DisplayName("PUT /promotions: writes the whole set in one call, then refreshes the snapshot exactly once")
+    void replace_writesThenSwapsOnce() throws Exception {
+        given(repo.replaceAll(anyList())).willReturn(new ReplaceResult(1, 1, 3));
+        given(catalog.refresh()).willReturn(new PromotionSnapshot(9L, List.of()));
+
+        var json = """
+        {
+          "promotions": [
+            {"type":"BUY_X_GET_Y","name":"Buy1Get1","priority":1,"enabled":true,"productId":123,"buyQty":1,"freeQty":1},
+            {"type":"PERCENT_OFF_CATEGORY","name":"BackToSchool","priority":5,"enabled":true,"category":"BOOKS","percent":20}
+          ]
+        }
+        """;
+
+        mvc.perform(put("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.inserted").value(1))
+           .andExpect(jsonPath("$.updated").value(1))
+           .andExpect(jsonPath("$.deleted").value(3))
+           .andExpect(jsonPath("$.snapshotVersion").value(9));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Promotion>> cap = ArgumentCaptor.forClass(List.class);
+        var order = inOrder(repo, catalog);
+        order.verify(repo).replaceAll(cap.capture());
+        order.verify(catalog, times(1)).refresh();
+        assertThat(cap.getValue()).extracting(Promotion::getName).containsExactly("Buy1Get1", "BackToSchool");
+        assertThat(cap.getValue().get(1).getPercent()).isEqualByComparingTo("20");
+        verify(repo, never()).save(any(Promotion.class));
+    }
+
+    @Test
+    @DisplayName("PUT /promotions: duplicate or missing names are rejected with 409 before anything is written")
+    void replace_badNames_409() throws Exception {
+        mvc.perform(put("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                { "promotions": [
+                  {"type":"BUY_X_GET_Y","name":"Same","priority":1,"enabled":true},
+                  {"type":"BUY_X_GET_Y","name":"Same","priority":2,"enabled":true}
+                ] }
+                """))
+           .andExpect(status().isConflict())
+           .andExpect(jsonPath("$.error").value("Duplicate promotion name: Same"));
+
+        mvc.perform(put("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                { "promotions": [ {"type":"BUY_X_GET_Y","priority":1,"enabled":true} ] }
+                """))
+           .andExpect(status().isConflict());
+
+        verifyNoInteractions(repo, catalog);
+    }
+
+    @Test
+    @DisplayName("PUT /promotions: a name inserted concurrently (unique key violation) yields 409 and no snapshot swap")
+    void replace_concurrentInsert_409() throws Exception {
+        given(repo.replaceAll(anyList())).willThrow(new DuplicateKeyException("uk_promotion_name"));
+
+        mvc.perform(put("/promotions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                { "promotions": [ {"type":"BUY_X_GET_Y","name":"New","priority":1,"enabled":true} ] }
+                """))
+           .andExpect(status().isConflict())
+           .andExpect(jsonPath("$.error").value("Promotions were changed concurrently; please retry"));
+
+        verifyNoInteractions(catalog);
+    }
 }
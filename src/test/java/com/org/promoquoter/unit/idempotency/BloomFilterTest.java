@@ -0,0 +1,36 @@
+package com.org.promoquoter.unit.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.org.promoquoter.idempotency.BloomFilter;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("mightContain(): never a false negative; false positives stay near the target rate")
+    void noFalseNegatives_boundedFalsePositives() {
+        int n = 20_000;
+        var filter = new BloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) filter.put("key-" + i);
+
+        for (int i = 0; i < n; i++) {
+            assertThat(filter.mightContain("key-" + i)).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < n; i++) {
+            if (filter.mightContain("other-" + i)) falsePositives++;
+        }
+        assertThat(falsePositives).isLessThan(n / 50); // < 2% against a 1% target
+    }
+
+    @Test
+    @DisplayName("mightContain(): empty filter rejects everything")
+    void emptyFilter() {
+        var filter = new BloomFilter(1_000, 0.01);
+        assertThat(filter.mightContain("")).isFalse();
+        assertThat(filter.mightContain("idem-1")).isFalse();
+    }
+}
@@ -0,0 +1,270 @@
+package com.org.promoquoter.unit.idempotency;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.org.promoquoter.dto.cart.ConfirmResponse;
+import com.org.promoquoter.entities.IdempotencyRecord;
+import com.org.promoquoter.entities.Order;
+import com.org.promoquoter.exception.IdempotencyKeyReuseException;
+import com.org.promoquoter.idempotency.IdempotencyStore;
+import com.org.promoquoter.repositories.IdempotencyRepository;
+import com.org.promoquoter.repositories.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    @Mock IdempotencyRepository idemRepo;
+    @Mock OrderRepository orderRepo;
+
+    @Captor ArgumentCaptor<IdempotencyRecord> recordCaptor;
+    @Captor ArgumentCaptor<OffsetDateTime> cutoffCaptor;
+
+    IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(idemRepo, orderRepo, Duration.ofHours(1), Duration.ZERO, 2, 100, 10_000);
+    }
+
+    private static final byte[] HASH = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 };
+    private static final byte[] OTHER_HASH = { 16, 15, 14, 13, 12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1 };
+
+    private IdempotencyRecord rec(String key, String orderId) {
+        return IdempotencyRecord.builder().idempotencyKey(key).orderId(orderId).requestHash(HASH)
+                .createdAt(OffsetDateTime.now()).build();
+    }
+
+    private void seed(String... keys) {
+        doAnswer(inv -> {
+            Consumer<String> sink = inv.getArgument(0);
+            for (var k : keys) sink.accept(k);
+            return null;
+        }).when(idemRepo).forEachKey(any());
+    }
+
+    @Test
+    @DisplayName("find(): unknown key is a definite bloom miss — no queries at all")
+    void find_definiteMiss_skipsQueries() {
+        seed("seeded");
+        store.start();
+
+        assertThat(store.find("never-seen", HASH)).isEmpty();
+
+        verify(idemRepo, never()).findById(any());
+        verifyNoInteractions(orderRepo);
+    }
+
+    @Test
+    @DisplayName("find(): seeded key hits the database once, then replays come from the cache")
+    void find_seededKey_thenCached() {
+        seed("k1");
+        when(idemRepo.findById("k1")).thenReturn(Optional.of(rec("k1", "o1")));
+        when(orderRepo.findById("o1")).thenReturn(Optional.of(Order.builder().id("o1").total(new BigDecimal("9.99")).build()));
+        store.start();
+
+        var first = store.find("k1", HASH);
+        var second = store.find("k1", HASH);
+
+        assertThat(first).get().extracting(r -> r.orderId()).isEqualTo("o1");
+        assertThat(second).isEqualTo(first);
+        verify(idemRepo, times(1)).findById("k1");
+        verify(orderRepo, times(1)).findById("o1");
+    }
+
+    @Test
+    @DisplayName("find(): replay with a different request hash is rejected before the order is loaded")
+    void find_hashMismatch_rejectedWithoutLoadingOrder() {
+        seed("k4");
+        when(idemRepo.findById("k4")).thenReturn(Optional.of(rec("k4", "o4")));
+        store.start();
+
+        assertThatThrownBy(() -> store.find("k4", OTHER_HASH))
+                .isInstanceOf(IdempotencyKeyReuseException.class)
+                .hasMessageContaining("k4");
+        verifyNoInteractions(orderRepo);
+
+        store.record("k5", HASH, "o5", BigDecimal.TEN); // cached path
+        assertThatThrownBy(() -> store.find("k5", OTHER_HASH)).isInstanceOf(IdempotencyKeyReuseException.class);
+        verify(idemRepo, never()).findById("k5");
+    }
+
+    @Test
+    @DisplayName("record(): inserts the row; the cache answers only after commit, a rollback leaves a bloom 'maybe'")
+    void record_cachesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.record("k2", HASH, "o2", new BigDecimal("5.00"));
+            store.record("k3", HASH, "o3", new BigDecimal("6.00"));
+            var syncs = TransactionSynchronizationManager.getSynchronizations();
+            syncs.get(0).afterCommit();
+            syncs.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(idemRepo, times(2)).save(recordCaptor.capture());
+        assertThat(recordCaptor.getAllValues().get(0).isNew()).isTrue();
+        assertThat(recordCaptor.getAllValues().get(0).getCreatedAt()).isNotNull();
+
+        assertThat(store.find("k2", HASH)).get().extracting(r -> r.orderId()).isEqualTo("o2");
+        assertThat(store.find("k3", HASH)).isEmpty(); // looked up (maybe), row is absent
+        verify(idemRepo, never()).findById("k2");
+        verify(idemRepo).findById("k3");
+    }
+
+    @Test
+    @DisplayName("purge(): deletes in bounded batches until a short batch, with cutoff = now - ttl")
+    void purge_boundedBatches() {
+        when(idemRepo.deleteCreatedBefore(any(), anyInt())).thenReturn(2, 2, 1);
+
+        assertThat(store.purge()).isEqualTo(5);
+
+        verify(idemRepo, times(3)).deleteCreatedBefore(cutoffCaptor.capture(), eq(2));
+        assertThat(cutoffCaptor.getValue())
+                .isBetween(OffsetDateTime.now().minusHours(1).minusMinutes(1), OffsetDateTime.now().minusHours(1));
+    }
+
+    @Test
+    @DisplayName("purge(): a key is forgotten only after a generation closed past the cutoff")
+    void purge_rotatesGenerationsSafely() {
+        var zeroTtl = new IdempotencyStore(idemRepo, orderRepo, Duration.ZERO, Duration.ZERO, 10, 100, 10_000);
+        zeroTtl.record("old", HASH, "o", BigDecimal.ONE);
+
+        zeroTtl.purge(); // "old" moves to the previous generation
+        assertThat(zeroTtl.find("old", HASH)).isEmpty();
+        verify(idemRepo, times(1)).findById("old");
+
+        zeroTtl.purge(); // previous closed before this cutoff: dropped
+        assertThat(zeroTtl.find("old", HASH)).isEmpty();
+        verify(idemRepo, times(1)).findById("old");
+    }
+
+    @Test
+    @DisplayName("singleFlight(): concurrent duplicates wait for the owner and share its response; work runs once")
+    void singleFlight_coalescesDuplicates() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var runs = new AtomicInteger();
+        var response = new ConfirmResponse("o9", new BigDecimal("3.00"));
+
+        var owner = CompletableFuture.supplyAsync(() -> store.singleFlight("k9", HASH, () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return response;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<ConfirmResponse>> duplicates = List.of(
+                CompletableFuture.supplyAsync(() -> store.singleFlight("k9", HASH, () -> { runs.incrementAndGet(); return null; })),
+                CompletableFuture.supplyAsync(() -> store.singleFlight("k9", HASH, () -> { runs.incrementAndGet(); return null; })));
+        Thread.sleep(100); // let the duplicates park on the owner's future
+        release.countDown();
+
+        assertThat(owner.get(5, TimeUnit.SECONDS)).isSameAs(response);
+        for (var d : duplicates) assertThat(d.get(5, TimeUnit.SECONDS)).isSameAs(response);
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("singleFlight(): owner failure is rethrown to waiters and the key is released for a retry")
+    void singleFlight_failurePropagates_thenReleases() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var owner = CompletableFuture.supplyAsync(() -> store.singleFlight("k10", HASH, () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("Insufficient stock for Mug");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        var waiter = CompletableFuture.supplyAsync(() -> store.singleFlight("k10", HASH, () -> null));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("Insufficient stock for Mug");
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("Insufficient stock for Mug");
+
+        var retried = new ConfirmResponse("o10", BigDecimal.ONE);
+        assertThat(store.singleFlight("k10", HASH, () -> retried)).isSameAs(retried);
+    }
+
+    @Test
+    @DisplayName("singleFlight(): a concurrent request with the same key but a different body is rejected, not coalesced")
+    void singleFlight_differentHash_rejected() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var owner = CompletableFuture.supplyAsync(() -> store.singleFlight("k11", HASH, () -> {
+            started.countDown();
+            await(release);
+            return new ConfirmResponse("o11", BigDecimal.ONE);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> store.singleFlight("k11", OTHER_HASH, () -> null))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+
+        release.countDown();
+        assertThat(owner.get(5, TimeUnit.SECONDS).orderId()).isEqualTo("o11");
+    }
+
+    @Test
+    @DisplayName("singleFlight(): a bloom 'definite miss' for a key another instance recorded replays its order on the PK violation")
+    void singleFlight_keyRecordedElsewhere_replaysOnDuplicateKey() {
+        when(idemRepo.findById("k12")).thenReturn(Optional.of(rec("k12", "o12")));
+        when(orderRepo.findById("o12")).thenReturn(Optional.of(Order.builder().id("o12").total(new BigDecimal("3.50")).build()));
+
+        var response = store.singleFlight("k12", HASH, () -> {
+            throw new DataIntegrityViolationException("duplicate key k12");
+        });
+
+        assertThat(response).isEqualTo(new ConfirmResponse("o12", new BigDecimal("3.50")));
+        assertThat(store.find("k12", HASH)).contains(response); // now known and cached
+        verify(idemRepo, times(1)).findById("k12");
+
+        // any other integrity failure is not swallowed
+        assertThatThrownBy(() -> store.singleFlight("k13", HASH, () -> {
+            throw new DataIntegrityViolationException("order total null");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.org.promoquoter.unit.idempotency;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.ConfirmRequest;
+import com.org.promoquoter.idempotency.RequestHash;
+
+class RequestHashTest {
+
+    private ConfirmRequest req(String segment, CartItem... items) {
+        return new ConfirmRequest(List.of(items), segment);
+    }
+
+    private CartItem li(long productId, int qty) { return new CartItem(productId, qty); }
+
+    @Test
+    @DisplayName("of(): 16 bytes, stable, and insensitive to line order or split lines of one product")
+    void canonical() {
+        var base = RequestHash.of(req("REGULAR", li(1L, 2), li(2L, 3)));
+
+        assertThat(base).hasSize(RequestHash.LENGTH);
+        assertThat(RequestHash.of(req("REGULAR", li(1L, 2), li(2L, 3)))).isEqualTo(base);
+        assertThat(RequestHash.of(req("REGULAR", li(2L, 3), li(1L, 2)))).isEqualTo(base);
+        assertThat(RequestHash.of(req("REGULAR", li(2L, 1), li(1L, 2), li(2L, 2)))).isEqualTo(base);
+    }
+
+    @Test
+    @DisplayName("of(): any change to products, quantities or segment changes the hash")
+    void sensitive() {
+        var base = RequestHash.of(req("REGULAR", li(1L, 2), li(2L, 3)));
+
+        assertThat(RequestHash.of(req("REGULAR", li(1L, 2), li(2L, 4)))).isNotEqualTo(base);
+        assertThat(RequestHash.of(req("REGULAR", li(1L, 2), li(3L, 3)))).isNotEqualTo(base);
+        assertThat(RequestHash.of(req("REGULAR", li(1L, 2)))).isNotEqualTo(base);
+        assertThat(RequestHash.of(req("VIP", li(1L, 2), li(2L, 3)))).isNotEqualTo(base);
+        assertThat(RequestHash.of(req("REGULAR ", li(1L, 2), li(2L, 3)))).isNotEqualTo(base);
+        assertThat(RequestHash.of(req(null, li(1L, 2), li(2L, 3))))
+                .isNotEqualTo(RequestHash.of(req("", li(1L, 2), li(2L, 3))));
+    }
+}
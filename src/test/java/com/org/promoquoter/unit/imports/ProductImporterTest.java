@@ -0,0 +1,145 @@
+package com.org.promoquoter.unit.imports;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.org.promoquoter.dto.product.ProductImportProgress;
+import com.org.promoquoter.dto.product.ProductsRequest.CreateProduct;
+import com.org.promoquoter.entities.Product;
+import com.org.promoquoter.imports.ProductImporter;
+import com.org.promoquoter.repositories.ProductRepository;
+
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImporterTest {
+
+    @Mock ProductRepository productRepo;
+    @Mock PlatformTransactionManager txManager;
+
+    @Captor ArgumentCaptor<List<Product>> chunkCaptor;
+
+    ProductImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        importer = new ProductImporter(productRepo, Validation.buildDefaultValidatorFactory().getValidator(), txManager, 3);
+    }
+
+    private static CreateProduct row(String name, String price) {
+        return new CreateProduct(name, "HOME", price == null ? null : new BigDecimal(price), 5);
+    }
+
+    // Rows as a lazy source; a null entry stands for a row the reader could not parse
+    private static Iterator<CreateProduct> source(List<CreateProduct> rows) {
+        var it = rows.iterator();
+        return new Iterator<>() {
+            public boolean hasNext() { return it.hasNext(); }
+            public CreateProduct next() {
+                var r = it.next();
+                if (r == null) throw new IllegalArgumentException("Unreadable product: bad line");
+                return r;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("importAll(): commits one JDBC batch per chunk; unreadable and invalid rows are reported and skipped")
+    void importAll_chunks_reportRowFailures() {
+        when(productRepo.insertAll(anyList())).thenAnswer(inv -> inv.getArgument(0, List.class).size());
+        var rows = Arrays.asList(
+                row("A", "1.00"), row("B", "2.00"), row("", "3.00"),   // chunk 0: blank name
+                row("D", "4.00"), null, row("F", "-1"),                  // chunk 1: unreadable, negative price
+                row("G", "7.00"));                                      // chunk 2
+        var progress = new ArrayList<ProductImportProgress>();
+
+        long imported = importer.importAll(source(rows), progress::add);
+
+        assertThat(imported).isEqualTo(4);
+        verify(productRepo, times(3)).insertAll(chunkCaptor.capture());
+        assertThat(chunkCaptor.getAllValues()).extracting(List::size).containsExactly(2, 1, 1);
+        verify(txManager, times(3)).commit(any());
+
+        assertThat(progress).extracting(ProductImportProgress::chunk).containsExactly(0, 1, 2);
+        assertThat(progress).extracting(ProductImportProgress::firstRow).containsExactly(1L, 4L, 7L);
+        assertThat(progress).extracting(ProductImportProgress::lastRow).containsExactly(3L, 6L, 7L);
+        assertThat(progress.get(0).failed()).singleElement()
+                .satisfies(f -> assertThat(f.row()).isEqualTo(3))
+                .satisfies(f -> assertThat(f.error()).isEqualTo("name: must not be blank"));
+        assertThat(progress.get(1).failed()).extracting(ProductImportProgress.RowError::row).containsExactly(5L, 6L);
+        assertThat(progress.get(1).failed().get(0).error()).isEqualTo("Unreadable product: bad line");
+        assertThat(progress.get(2).totalImported()).isEqualTo(4);
+        assertThat(progress.get(2).totalFailed()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("importAll(): a chunk whose insert fails is rolled back and reported whole; later chunks still run")
+    void importAll_failedChunk_rolledBack_continues() {
+        when(productRepo.insertAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("value too long for column NAME"))
+                .thenAnswer(inv -> inv.getArgument(0, List.class).size());
+
+        var progress = new ArrayList<ProductImportProgress>();
+        long imported = importer.importAll(source(List.of(
+                row("A", "1.00"), row("B", "2.00"), row("C", "3.00"), row("D", "4.00"))), progress::add);
+
+        assertThat(imported).isEqualTo(1);
+        verify(txManager).rollback(any());
+        assertThat(progress.get(0).imported()).isZero();
+        assertThat(progress.get(0).error()).isEqualTo("value too long for column NAME");
+        assertThat(progress.get(1).imported()).isEqualTo(1);
+        assertThat(progress.get(1).error()).isNull();
+        assertThat(progress.get(1).totalFailed()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("importAll(): cells the product table cannot take are row errors, so the good rows in the chunk still commit")
+    void importAll_schemaViolations_rowErrors() {
+        when(productRepo.insertAll(anyList())).thenAnswer(inv -> inv.getArgument(0, List.class).size());
+        var progress = new ArrayList<ProductImportProgress>();
+
+        long imported = importer.importAll(source(List.of(
+                row("A", "1.00"), row("B", null), row("C", "2.00"),
+                row("x".repeat(256), "1.00"), row("E", "100000000000000000"))), progress::add);
+
+        assertThat(imported).isEqualTo(2);
+        verify(productRepo).insertAll(chunkCaptor.capture());
+        assertThat(chunkCaptor.getValue()).extracting(Product::getName).containsExactly("A", "C");
+        assertThat(progress.get(0).failed()).singleElement()
+                .satisfies(f -> assertThat(f.row()).isEqualTo(2))
+                .satisfies(f -> assertThat(f.error()).isEqualTo("price: must not be null"));
+        assertThat(progress.get(1).failed()).extracting(ProductImportProgress.RowError::error)
+                .containsExactly("name: size must be between 0 and 255",
+                        "price: must be less than or equal to 99999999999999999.99");
+        assertThat(progress.get(1).totalFailed()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("importAll(): an empty source writes nothing and reports nothing")
+    void importAll_empty() {
+        var progress = new ArrayList<ProductImportProgress>();
+
+        assertThat(importer.importAll(source(List.of()), progress::add)).isZero();
+        assertThat(progress).isEmpty();
+    }
+}
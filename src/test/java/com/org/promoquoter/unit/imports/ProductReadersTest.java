@@ -0,0 +1,100 @@
+package com.org.promoquoter.unit.imports;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.promoquoter.dto.product.ProductsRequest.CreateProduct;
+import com.org.promoquoter.imports.CsvProductReader;
+import com.org.promoquoter.imports.JsonProductReader;
+
+class ProductReadersTest {
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    private static InputStream body(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Drains the reader, recording failures as "!message"
+    private static List<Object> drain(Iterator<CreateProduct> reader) {
+        var out = new ArrayList<Object>();
+        while (reader.hasNext()) {
+            try {
+                out.add(reader.next());
+            } catch (IllegalArgumentException ex) {
+                out.add("!" + ex.getMessage());
+            }
+        }
+        return out;
+    }
+
+    @Test
+    @DisplayName("CSV: header in any order and case, quoted fields, blank lines skipped, bad numbers reported per line")
+    void csv_parsesLines_reportsBadOnes() throws Exception {
+        var csv = """
+                Stock,NAME,category,price,notes
+                10,"Mug, large",HOME,4.50,x
+
+                3,"Say ""hi"" card",GIFTS,1.25,
+                many,Pen,OFFICE,0.99,
+                """;
+
+        var rows = drain(new CsvProductReader(body(csv)));
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).isEqualTo(new CreateProduct("Mug, large", "HOME", new BigDecimal("4.50"), 10));
+        assertThat(rows.get(1)).isEqualTo(new CreateProduct("Say \"hi\" card", "GIFTS", new BigDecimal("1.25"), 3));
+        assertThat((String) rows.get(2)).startsWith("!price/stock must be numbers");
+    }
+
+    @Test
+    @DisplayName("CSV: a header without the required columns is rejected up front")
+    void csv_missingColumns_rejected() {
+        assertThatThrownBy(() -> new CsvProductReader(body("name,price\nMug,1.00\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name, category, price, stock");
+    }
+
+    @Test
+    @DisplayName("JSON: bare array and {\"products\":[...]} both stream; a bad element is reported, reading carries on")
+    void json_arrayOrWrapper_perElementErrors() throws Exception {
+        var bare = drain(new JsonProductReader(om, body("""
+                [{"name":"Mug","category":"HOME","price":4.50,"stock":1},
+                 {"name":"Pen","category":"OFFICE","price":"cheap","stock":2},
+                 {"name":"Cup","category":"HOME","price":2.00,"stock":3}]
+                """)));
+        var wrapped = drain(new JsonProductReader(om, body("""
+                {"source":{"system":"erp"},"products":[{"name":"Mug","category":"HOME","price":4.50,"stock":1}]}
+                """)));
+
+        assertThat(bare).hasSize(3);
+        assertThat(bare.get(0)).isEqualTo(new CreateProduct("Mug", "HOME", new BigDecimal("4.50"), 1));
+        assertThat((String) bare.get(1)).startsWith("!Unreadable product:");
+        assertThat(bare.get(2)).isEqualTo(new CreateProduct("Cup", "HOME", new BigDecimal("2.00"), 3));
+        assertThat(wrapped).containsExactly(new CreateProduct("Mug", "HOME", new BigDecimal("4.50"), 1));
+    }
+
+    @Test
+    @DisplayName("JSON: malformed input ends the stream after reporting it once")
+    void json_syntaxError_endsStream() throws Exception {
+        var rows = drain(new JsonProductReader(om, body("""
+                [{"name":"Mug","category":"HOME","price":4.50,"stock":1},
+                 {"name": oops},
+                 {"name":"Cup","category":"HOME","price":2.00,"stock":3}]
+                """)));
+
+        assertThat(rows).hasSize(2);
+        assertThat((String) rows.get(1)).startsWith("!Unreadable product:");
+    }
+}
@@ -0,0 +1,159 @@
+package com.org.promoquoter.unit.inventory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.org.promoquoter.inventory.StockLedger;
+import com.org.promoquoter.repositories.ProductRepository;
+import com.org.promoquoter.repositories.StockReservation;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerTest {
+
+    @Mock ProductRepository productRepo;
+    @Mock PlatformTransactionManager txManager;
+
+    @Captor ArgumentCaptor<Map<Long, Integer>> decrementsCaptor;
+
+    StockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new StockLedger(productRepo, txManager, true, 8, 2, Duration.ZERO);
+    }
+
+    private StockReservation r(long id, int qty) {
+        return new StockReservation(id, qty, BigDecimal.ONE, "C");
+    }
+
+    @Test
+    @DisplayName("reserve(): all-or-nothing across products; unknown ids are reported short")
+    void reserve_allOrNothing() {
+        when(productRepo.findStock(anyCollection())).thenReturn(Map.of(1L, 5, 2L, 1));
+
+        assertThat(ledger.reserve(List.of(r(1L, 3), r(2L, 2), r(3L, 1)))).containsExactly(2L, 3L);
+        assertThat(ledger.available(1L)).isEqualTo(5);
+        assertThat(ledger.available(2L)).isEqualTo(1);
+
+        assertThat(ledger.reserve(List.of(r(1L, 3), r(2L, 1)))).isEmpty();
+        assertThat(ledger.available(1L)).isEqualTo(2);
+        assertThat(ledger.available(2L)).isZero();
+
+        verify(productRepo, times(1)).findStock(anyCollection()); // seeded once, then served from memory
+    }
+
+    @Test
+    @DisplayName("reserve(): rollback hands stock back; commit turns it into a pending decrement")
+    void reserve_settlesWithTransaction() {
+        when(productRepo.findStock(anyCollection())).thenReturn(Map.of(1L, 5));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.reserve(List.of(r(1L, 2)));
+            ledger.reserve(List.of(r(1L, 1)));
+            assertThat(ledger.available(1L)).isEqualTo(2);
+
+            var syncs = TransactionSynchronizationManager.getSynchronizations();
+            syncs.get(0).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            syncs.get(1).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(ledger.available(1L)).isEqualTo(4);
+        assertThat(ledger.flush()).isEqualTo(1);
+        verify(productRepo).applyStockDecrements(Map.of(1L, 1));
+    }
+
+    @Test
+    @DisplayName("flush(): aggregates per product and writes in batches of flush-batch-size")
+    void flush_batches() {
+        when(productRepo.findStock(anyCollection())).thenReturn(Map.of(1L, 9, 2L, 9, 3L, 9));
+        ledger.reserve(List.of(r(1L, 1), r(2L, 2), r(3L, 3)));
+        ledger.reserve(List.of(r(1L, 4)));
+
+        assertThat(ledger.flush()).isEqualTo(3);
+        verify(productRepo, times(2)).applyStockDecrements(decrementsCaptor.capture());
+
+        var written = new HashMap<Long, Integer>();
+        decrementsCaptor.getAllValues().forEach(b -> {
+            assertThat(b.size()).isLessThanOrEqualTo(2);
+            written.putAll(b);
+        });
+        assertThat(written).isEqualTo(Map.of(1L, 5, 2L, 2, 3L, 3));
+        assertThat(ledger.flush()).isZero();
+    }
+
+    @Test
+    @DisplayName("flush(): a failed batch is rolled back whole and its decrements stay pending for the next flush")
+    void flush_failureRetries() {
+        when(productRepo.findStock(anyCollection())).thenReturn(Map.of(1L, 9));
+        ledger.reserve(List.of(r(1L, 2)));
+        doThrow(new IllegalStateException("db down")).doNothing().when(productRepo).applyStockDecrements(any());
+
+        assertThatThrownBy(() -> ledger.flush()).hasMessage("db down");
+        verify(txManager).rollback(any());
+        assertThat(ledger.flush()).isEqualTo(1);
+        verify(productRepo, times(2)).applyStockDecrements(Map.of(1L, 2));
+        verify(txManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("reserve(): concurrent confirms on one hot SKU never oversell")
+    void reserve_concurrentHotSku_neverOversells() throws Exception {
+        when(productRepo.findStock(anyCollection())).thenReturn(Map.of(1L, 1_000, 2L, 1_000));
+        int threads = 8, perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        var admitted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    if (ledger.reserve(List.of(r(1L, 1), r(2L, 1))).isEmpty()) admitted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(admitted.get()).isEqualTo(1_000);
+        assertThat(ledger.available(1L)).isZero();
+        assertThat(ledger.available(2L)).isZero();
+        ledger.flush();
+        verify(productRepo).applyStockDecrements(Map.of(1L, 1_000, 2L, 1_000));
+    }
+}
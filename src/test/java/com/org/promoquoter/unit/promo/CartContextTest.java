@@ -0,0 +1,48 @@
+package com.org.promoquoter.unit.promo;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.org.promoquoter.promo.CartContext;
+import com.org.promoquoter.promo.CartLine;
+
+class CartContextTest {
+
+    private CartLine line(long pid, String category, int qty) {
+        return new CartLine(pid, "Item" + pid, category, qty, new BigDecimal("1.00"));
+    }
+
+    @Test
+    @DisplayName("lineByProduct(): returns the first line for a product, null when absent")
+    void lineByProduct_firstWins() {
+        var first = line(1L, "A", 1);
+        var dup = line(1L, "A", 5);
+        var ctx = new CartContext(List.of(first, line(2L, "B", 1), dup));
+
+        assertThat(ctx.lineByProduct(1L)).isSameAs(first);
+        assertThat(ctx.lineByProduct(3L)).isNull();
+        assertThat(ctx.lineByProduct(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("cartLinesInCategory(): keeps cart order and returns the same unmodifiable list on every call")
+    void cartLinesInCategory_indexed() {
+        var a1 = line(1L, "A", 1);
+        var b = line(2L, "B", 1);
+        var a2 = line(3L, "A", 1);
+        var ctx = new CartContext(List.of(a1, b, a2));
+
+        var as = ctx.cartLinesInCategory("A");
+        assertThat(as).containsExactly(a1, a2);
+        assertThat(ctx.cartLinesInCategory("A")).isSameAs(as);
+        assertThatThrownBy(() -> as.add(b)).isInstanceOf(UnsupportedOperationException.class);
+
+        assertThat(ctx.cartLinesInCategory("Z")).isEmpty();
+        assertThat(ctx.cartLinesInCategory(null)).isEmpty();
+    }
+}
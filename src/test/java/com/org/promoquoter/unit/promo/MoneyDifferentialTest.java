@@ -0,0 +1,128 @@
+package com.org.promoquoter.unit.promo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.BuyXGetYRule;
+import com.org.promoquoter.promo.CartContext;
+import com.org.promoquoter.promo.CartLine;
+import com.org.promoquoter.promo.Money;
+import com.org.promoquoter.promo.PercentOffCategoryRule;
+import com.org.promoquoter.promo.PromotionDef;
+import com.org.promoquoter.promo.PromotionPipeline;
+
+/**
+ * Differential check: the fixed-point engine must produce byte-identical amounts
+ * (value AND scale) and audit text compared with the original BigDecimal formulas.
+ */
+class MoneyDifferentialTest {
+
+    private final PromotionPipeline pipeline =
+            new PromotionPipeline(List.of(new PercentOffCategoryRule(), new BuyXGetYRule()));
+
+    // ---------- Reference: the original BigDecimal implementation ----------
+
+    private static final class RefLine {
+        final long productId; final String name; final String category; final int qty; final BigDecimal unitPrice;
+        BigDecimal discount = BigDecimal.ZERO;
+
+        RefLine(long productId, String name, String category, int qty, BigDecimal unitPrice) {
+            this.productId = productId; this.name = name; this.category = category; this.qty = qty; this.unitPrice = unitPrice;
+        }
+
+        BigDecimal original() { return unitPrice.multiply(BigDecimal.valueOf(qty)); }
+
+        BigDecimal fin() { return original().subtract(discount).setScale(2, RoundingMode.HALF_UP); }
+    }
+
+    private static void refApply(List<RefLine> lines, List<String> audit, PromotionDef def) {
+        if (def.type() == PromotionType.PERCENT_OFF_CATEGORY) {
+            for (var line : lines) {
+                if (!line.category.equals(def.category())) continue;
+                BigDecimal d = line.original().multiply(def.percent()).divide(BigDecimal.valueOf(100))
+                        .setScale(2, RoundingMode.HALF_UP);
+                if (d.signum() > 0) {
+                    line.discount = line.discount.add(d);
+                    audit.add("PERCENT_OFF_CATEGORY(" + def.percent() + "%) on " + line.name + ": -" + d);
+                }
+            }
+        } else {
+            var line = lines.stream().filter(l -> l.productId == def.productId()).findFirst().orElse(null);
+            if (line == null) return;
+            int free = (line.qty / (def.buyQty() + def.freeQty())) * def.freeQty();
+            BigDecimal d = line.unitPrice.multiply(BigDecimal.valueOf(free)).setScale(2, RoundingMode.HALF_UP);
+            if (free > 0) {
+                line.discount = line.discount.add(d);
+                audit.add("BUY_" + def.buyQty() + "_GET_" + def.freeQty() + " on " + line.name + ": free=" + free + ", -" + d);
+            }
+        }
+    }
+
+    // ---------- Tests ----------
+
+    @Test
+    @DisplayName("Random carts: fixed-point totals, line amounts and audit are identical to the BigDecimal path")
+    void fixedPoint_matchesBigDecimal() {
+        var rnd = new Random(20240601);
+        var categories = List.of("A", "B", "C");
+        String[] percents = {"0", "5", "10", "12.5", "15", "33.33", "50", "7.125", "1E+1"};
+
+        for (int run = 0; run < 500; run++) {
+            List<PromotionDef> defs = new ArrayList<>();
+            for (long id = 1; id <= 1 + rnd.nextInt(6); id++) {
+                defs.add(rnd.nextBoolean()
+                        ? new PromotionDef(id, PromotionType.PERCENT_OFF_CATEGORY, "P" + id, rnd.nextInt(10), true,
+                                categories.get(rnd.nextInt(3)), new BigDecimal(percents[rnd.nextInt(percents.length)]),
+                                null, null, null)
+                        : new PromotionDef(id, PromotionType.BUY_X_GET_Y, "B" + id, rnd.nextInt(10), true,
+                                null, null, (long) (1 + rnd.nextInt(5)), 1 + rnd.nextInt(3), 1 + rnd.nextInt(2)));
+            }
+            var snapshot = pipeline.compile(1L, defs);
+
+            List<CartLine> lines = new ArrayList<>();
+            List<RefLine> ref = new ArrayList<>();
+            for (int i = 0; i < 1 + rnd.nextInt(5); i++) {
+                long pid = 1 + rnd.nextInt(5);
+                var cat = categories.get(rnd.nextInt(3));
+                int qty = 1 + rnd.nextInt(20);
+                // prices with 0..4 decimals, including sub-cent prices
+                var price = BigDecimal.valueOf(rnd.nextInt(1_000_000), rnd.nextInt(5));
+                lines.add(new CartLine(pid, "Item" + pid, cat, qty, price));
+                ref.add(new RefLine(pid, "Item" + pid, cat, qty, price));
+            }
+
+            var ctx = new CartContext(lines);
+            pipeline.run(ctx, snapshot);
+
+            List<String> refAudit = new ArrayList<>();
+            snapshot.defs().forEach(d -> refApply(ref, refAudit, d));
+
+            for (int i = 0; i < lines.size(); i++) {
+                assertThat(lines.get(i).getOriginalSubtotal()).isEqualTo(ref.get(i).original());
+                assertThat(lines.get(i).getDiscount()).isEqualTo(ref.get(i).discount);
+                assertThat(lines.get(i).getFinalSubtotal()).isEqualTo(ref.get(i).fin());
+            }
+            var refTotal = ref.stream().map(RefLine::fin).reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertThat(ctx.total()).isEqualTo(refTotal);
+            assertThat(ctx.auditEntries()).isEqualTo(refAudit);
+        }
+    }
+
+    @Test
+    @DisplayName("divHalfUp(): ties round away from zero, like RoundingMode.HALF_UP")
+    void divHalfUp_ties() {
+        assertThat(Money.divHalfUp(15, 10)).isEqualTo(2);
+        assertThat(Money.divHalfUp(14, 10)).isEqualTo(1);
+        assertThat(Money.divHalfUp(-15, 10)).isEqualTo(-2);
+        assertThat(Money.divHalfUp(-14, 10)).isEqualTo(-1);
+        assertThat(Money.divHalfUp(999, 10)).isEqualTo(100);
+    }
+}
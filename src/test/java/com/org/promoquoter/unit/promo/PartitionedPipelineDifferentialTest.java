@@ -0,0 +1,103 @@
+package com.org.promoquoter.unit.promo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.BuyXGetYRule;
+import com.org.promoquoter.promo.CartContext;
+import com.org.promoquoter.promo.CartLine;
+import com.org.promoquoter.promo.PercentOffCategoryRule;
+import com.org.promoquoter.promo.PromotionDef;
+import com.org.promoquoter.promo.PromotionPipeline;
+import com.org.promoquoter.promo.PromotionResult;
+import com.org.promoquoter.promo.PromotionRule;
+
+/**
+ * Differential check: partitioned (concurrent) evaluation must leave every line and the audit
+ * trail exactly as the sequential run does.
+ */
+class PartitionedPipelineDifferentialTest {
+
+    private final List<PromotionRule> rules = List.of(new PercentOffCategoryRule(), new BuyXGetYRule());
+    private final PromotionPipeline sequential = new PromotionPipeline(rules);
+    private final PromotionPipeline partitioned = new PromotionPipeline(rules, 1);
+
+    private static List<CartLine> cart(long seed, int size, int products, int categories) {
+        var rnd = new Random(seed);
+        List<CartLine> lines = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            long pid = 1 + rnd.nextInt(products);
+            lines.add(new CartLine(pid, "Item" + pid, "C" + (pid % categories), 1 + rnd.nextInt(12),
+                    BigDecimal.valueOf(1 + rnd.nextInt(100_000), rnd.nextInt(4))));
+        }
+        return lines;
+    }
+
+    private static List<PromotionDef> promotions(Random rnd, int count, int products, int categories) {
+        List<PromotionDef> defs = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            defs.add(rnd.nextBoolean()
+                    ? new PromotionDef(id, PromotionType.PERCENT_OFF_CATEGORY, "P" + id, rnd.nextInt(20), true,
+                            "C" + rnd.nextInt(categories), BigDecimal.valueOf(1 + rnd.nextInt(40)), null, null, null)
+                    : new PromotionDef(id, PromotionType.BUY_X_GET_Y, "B" + id, rnd.nextInt(20), true,
+                            null, null, (long) (1 + rnd.nextInt(products)), 1 + rnd.nextInt(3), 1));
+        }
+        return defs;
+    }
+
+    @Test
+    @DisplayName("Random large carts: partitioned run matches the sequential run line by line and audit entry by entry")
+    void partitioned_matchesSequential() {
+        var rnd = new Random(20241017);
+        for (int run = 0; run < 50; run++) {
+            int products = 50 + rnd.nextInt(500), categories = 5 + rnd.nextInt(40);
+            var snapshot = sequential.compile(1L, promotions(rnd, 5 + rnd.nextInt(200), products, categories));
+            long seed = rnd.nextLong();
+            int size = 1 + rnd.nextInt(400);
+
+            var expected = new CartContext(cart(seed, size, products, categories));
+            var actual = new CartContext(cart(seed, size, products, categories));
+            sequential.run(expected, snapshot);
+            var result = partitioned.run(actual, snapshot);
+
+            for (int i = 0; i < size; i++) {
+                var e = expected.cartLines().get(i);
+                var a = actual.cartLines().get(i);
+                assertThat(a.getDiscount()).isEqualTo(e.getDiscount());
+                assertThat(a.getFinalSubtotal()).isEqualTo(e.getFinalSubtotal());
+            }
+            assertThat(actual.total()).isEqualTo(expected.total());
+            assertThat(result.audit()).isEqualTo(expected.auditEntries());
+        }
+    }
+
+    @Test
+    @DisplayName("Unkeyed candidates may touch any line, so the run stays on the calling thread")
+    void unkeyedCandidate_runsSequentially() {
+        var unkeyed = mock(PromotionRule.class);
+        when(unkeyed.type()).thenReturn(PromotionType.PERCENT_OFF_CATEGORY);
+        var caller = Thread.currentThread();
+        List<Thread> seen = new ArrayList<>();
+        when(unkeyed.apply(any(), any())).thenAnswer(inv -> {
+            seen.add(Thread.currentThread());
+            return PromotionResult.none("PERCENT_OFF_CATEGORY");
+        });
+        var pipeline = new PromotionPipeline(List.of(unkeyed, new BuyXGetYRule()), 1);
+        var defs = promotions(new Random(7), 20, 10, 3).stream()
+                .filter(d -> d.type() == PromotionType.PERCENT_OFF_CATEGORY).toList();
+
+        pipeline.run(new CartContext(cart(1L, 50, 10, 3)), pipeline.compile(1L, defs));
+
+        assertThat(seen).isNotEmpty().allMatch(t -> t == caller);
+    }
+}
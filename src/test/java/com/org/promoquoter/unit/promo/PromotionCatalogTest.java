@@ -0,0 +1,124 @@
+package com.org.promoquoter.unit.promo;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.org.promoquoter.entities.Promotion;
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.BuyXGetYRule;
+import com.org.promoquoter.promo.PercentOffCategoryRule;
+import com.org.promoquoter.promo.PromotionCatalog;
+import com.org.promoquoter.promo.PromotionDef;
+import com.org.promoquoter.promo.PromotionFactory;
+import com.org.promoquoter.promo.PromotionPipeline;
+import com.org.promoquoter.repositories.PromotionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionCatalogTest {
+
+    @Mock PromotionRepository promoRepo;
+
+    PromotionCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        var pipeline = new PromotionPipeline(List.of(new PercentOffCategoryRule(), new BuyXGetYRule()));
+        catalog = new PromotionCatalog(promoRepo, new PromotionFactory(), pipeline, Duration.ZERO);
+    }
+
+    // ---------- Helpers ----------
+
+    private Promotion percent(long id, String name, int priority, boolean enabled) {
+        return Promotion.builder()
+                .id(id).type(PromotionType.PERCENT_OFF_CATEGORY).name(name)
+                .priority(priority).enabled(enabled)
+                .category("ANY").percent(BigDecimal.TEN)
+                .build();
+    }
+
+    // ---------- Tests ----------
+
+    @Test
+    @DisplayName("current(): loads lazily once, then serves the same snapshot without touching the repository")
+    void current_loadsOnce() {
+        when(promoRepo.findAll()).thenReturn(List.of(percent(1L, "A", 1, true)));
+
+        var first = catalog.current();
+        var second = catalog.current();
+
+        assertThat(second).isSameAs(first);
+        verify(promoRepo, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("current(): snapshot holds only enabled defs, priority-ordered, each bound to its rule")
+    void snapshot_enabledSortedAndBound() {
+        when(promoRepo.findAll()).thenReturn(List.of(
+                percent(1L, "Late", 9, true),
+                percent(2L, "Off", 0, false),
+                percent(3L, "Early", 1, true)));
+
+        var snapshot = catalog.current();
+
+        assertThat(snapshot.defs()).extracting(PromotionDef::name).containsExactly("Early", "Late");
+        assertThat(snapshot.names()).containsExactly("Early", "Late");
+        assertThat(snapshot.names()).isSameAs(snapshot.names()); // built once, not per quote
+        assertThat(snapshot.promotions()).allSatisfy(p -> assertThat(p.rule()).isInstanceOf(PercentOffCategoryRule.class));
+    }
+
+    @Test
+    @DisplayName("refresh(): swaps in a new snapshot with a higher version")
+    void refresh_swapsAndBumpsVersion() {
+        when(promoRepo.findAll())
+                .thenReturn(List.of(percent(1L, "A", 1, true)))
+                .thenReturn(List.of(percent(1L, "A", 1, true), percent(2L, "B", 2, true)));
+
+        var before = catalog.current();
+        var after = catalog.refresh();
+
+        assertThat(after.version()).isGreaterThan(before.version());
+        assertThat(catalog.current()).isSameAs(after);
+        assertThat(after.defs()).extracting(PromotionDef::name).containsExactly("A", "B");
+        assertThat(before.defs()).extracting(PromotionDef::name).containsExactly("A");
+    }
+
+    @Test
+    @DisplayName("refreshIfChanged(): the same rows keep the snapshot and its version; changed rows swap a new one in")
+    void refreshIfChanged_swapsOnlyOnChange() {
+        when(promoRepo.findAll())
+                .thenReturn(List.of(percent(1L, "A", 1, true)))
+                .thenReturn(List.of(percent(1L, "A", 1, true)))
+                .thenReturn(List.of(percent(1L, "A", 1, false)));
+
+        var first = catalog.current();
+
+        assertThat(catalog.refreshIfChanged()).isSameAs(first);
+        var changed = catalog.refreshIfChanged();
+        assertThat(changed.version()).isGreaterThan(first.version());
+        assertThat(catalog.current()).isSameAs(changed);
+        assertThat(changed.defs()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("refreshIfChanged(): before the first snapshot it just loads it once")
+    void refreshIfChanged_beforeFirstLoad_loadsOnce() {
+        when(promoRepo.findAll()).thenReturn(List.of(percent(1L, "A", 1, true)));
+
+        var snapshot = catalog.refreshIfChanged();
+
+        assertThat(catalog.current()).isSameAs(snapshot);
+        verify(promoRepo, times(1)).findAll();
+    }
+}
@@ -1,9 +1,11 @@
 package com.org.promoquoter.unit.promo;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,10 +17,10 @@ import org.mockito.InOrder;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -26,22 +28,27 @@ import com.org.promoquoter.entities.PromotionType;
 import com.org.promoquoter.promo.CartContext;
 import com.org.promoquoter.promo.PromotionDef;
 import com.org.promoquoter.promo.PromotionPipeline;
+import com.org.promoquoter.promo.PromotionProfiler;
 import com.org.promoquoter.promo.PromotionResult;
 import com.org.promoquoter.promo.PromotionRule;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 
 @ExtendWith(MockitoExtension.class)
 class PromotionPipelineTest {
 
-    @Mock PromotionRule rule1;
-    @Mock PromotionRule rule2;
+    @Mock PromotionRule percentRule;
+    @Mock PromotionRule bogoRule;
 
     PromotionPipeline pipeline;
 
     @BeforeEach
     void setUp() {
-        // order matters; pipeline picks the FIRST rule that supports a def
-        pipeline = new PromotionPipeline(List.of(rule1, rule2));
+        // rules are resolved once into a PromotionType dispatch table
+        when(percentRule.type()).thenReturn(PromotionType.PERCENT_OFF_CATEGORY);
+        when(bogoRule.type()).thenReturn(PromotionType.BUY_X_GET_Y);
+        pipeline = new PromotionPipeline(List.of(percentRule, bogoRule));
     }
 
     // ---------- Helpers ----------
@@ -51,9 +58,13 @@ class PromotionPipelineTest {
     }
 
     private PromotionDef def(String name, int priority, boolean enabled) {
+        return def(PromotionType.PERCENT_OFF_CATEGORY, name, priority, enabled);
+    }
+
+    private PromotionDef def(PromotionType type, String name, int priority, boolean enabled) {
         return new PromotionDef(
                 1L,
-                PromotionType.PERCENT_OFF_CATEGORY,
+                type,
                 name,
                 priority,
                 enabled,
@@ -63,6 +74,12 @@ class PromotionPipelineTest {
         );
     }
 
+    private PromotionRule ruleOf(PromotionType type) {
+        var rule = mock(PromotionRule.class);
+        when(rule.type()).thenReturn(type);
+        return rule;
+    }
+
     // ---------- Tests ----------
 
     @Test
@@ -75,106 +92,137 @@ class PromotionPipelineTest {
         var defA = def("A", 1, true);
         var defC = def("C", 0, false);
 
-        // Only rule1 needs stubbing; pipeline won't query rule2  when rule1 already supports
-        when(rule1.supports(any(PromotionDef.class))).thenReturn(true);
-
         // Add visible audit to verify order A then B
         doAnswer(inv -> {
             CartContext c = inv.getArgument(0);
             PromotionDef d = inv.getArgument(1);
             c.audit("applied " + d.name());
-            return PromotionResult.of("rule1", BigDecimal.ZERO);
-        }).when(rule1).apply(any(CartContext.class), any(PromotionDef.class));
+            return PromotionResult.of("percent", BigDecimal.ZERO);
+        }).when(percentRule).apply(any(CartContext.class), any(PromotionDef.class));
 
         var result = pipeline.run(ctx, List.of(defB, defA, defC));
 
-        InOrder inOrder = inOrder(rule1);
-        inOrder.verify(rule1).apply(same(ctx), eq(defA));
-        inOrder.verify(rule1).apply(same(ctx), eq(defB));
-        verify(rule1, times(2)).apply(any(), any());
-        verifyNoInteractions(rule2); // no unnecessary calls
+        InOrder inOrder = inOrder(percentRule);
+        inOrder.verify(percentRule).apply(same(ctx), eq(defA));
+        inOrder.verify(percentRule).apply(same(ctx), eq(defB));
+        verify(percentRule, times(2)).apply(any(), any());
+        verify(bogoRule, never()).apply(any(), any());
 
         assertThat(result.audit()).containsExactly("applied A", "applied B");
         assertThat(result.audit()).isSameAs(ctx.auditEntries());
     }
 
     @Test
-    @DisplayName("For a def supported by multiple rules, only the FIRST rule is applied")
-    void firstSupportingRuleWins() {
+    @DisplayName("Each def is dispatched to the rule registered for its type, without calling supports()")
+    void dispatchesByType() {
         var ctx = emptyCart();
-        var defX = def("X", 10, true);
+        var pct = def(PromotionType.PERCENT_OFF_CATEGORY, "P", 1, true);
+        var bogo = def(PromotionType.BUY_X_GET_Y, "B", 2, true);
 
-        // Only stub rule1; pipeline won't reach rule2
-        when(rule1.supports(eq(defX))).thenReturn(true);
+        pipeline.run(ctx, List.of(bogo, pct));
 
-        doAnswer(inv -> {
-            CartContext c = inv.getArgument(0);
-            c.audit("rule1->X");
-            return PromotionResult.of("rule1", BigDecimal.ZERO);
-        }).when(rule1).apply(any(CartContext.class), eq(defX));
-
-        var res = pipeline.run(ctx, List.of(defX));
-
-        verify(rule1).apply(same(ctx), eq(defX));
-        verifyNoInteractions(rule2);
-
-        assertThat(res.audit()).containsExactly("rule1->X");
+        InOrder inOrder = inOrder(percentRule, bogoRule);
+        inOrder.verify(percentRule).apply(same(ctx), eq(pct));
+        inOrder.verify(bogoRule).apply(same(ctx), eq(bogo));
+        verify(percentRule, never()).supports(any());
+        verify(bogoRule, never()).supports(any());
     }
 
     @Test
-    @DisplayName("If the first rule does NOT support a def but a later rule does, the later rule is applied")
-    void laterRuleAppliedWhenFirstDoesNotSupport() {
-        var ctx = emptyCart();
-        var defY = def("Y", 2, true);
-
-        when(rule1.supports(eq(defY))).thenReturn(false);
-        when(rule2.supports(eq(defY))).thenReturn(true);
-
-        doAnswer(inv -> {
-            CartContext c = inv.getArgument(0);
-            c.audit("rule2->Y");
-            return PromotionResult.of("rule2", BigDecimal.ZERO);
-        }).when(rule2).apply(any(CartContext.class), eq(defY));
+    @DisplayName("Each application is timed per PromotionType; only discounting ones count as applications")
+    void metricsPerPromotionType() {
+        var registry = new SimpleMeterRegistry();
+        var metered = new PromotionPipeline(List.of(percentRule, bogoRule), 0, registry, PromotionProfiler.disabled());
+        when(percentRule.apply(any(), any())).thenReturn(
+                PromotionResult.of("percent", new BigDecimal("1.50")), PromotionResult.of("percent", BigDecimal.ZERO));
+
+        metered.run(emptyCart(), List.of(def("A", 1, true), def("B", 2, true),
+                def(PromotionType.BUY_X_GET_Y, "X", 3, true)));
+
+        assertThat(registry.get("promoquoter.promotion.time").tag("type", "PERCENT_OFF_CATEGORY").timer().count()).isEqualTo(2);
+        assertThat(registry.get("promoquoter.promotion.time").tag("type", "BUY_X_GET_Y").timer().count()).isEqualTo(1);
+        assertThat(registry.get("promoquoter.promotion.applications").tag("type", "PERCENT_OFF_CATEGORY").counter().count()).isEqualTo(1);
+        assertThat(registry.get("promoquoter.promotion.applications").tag("type", "BUY_X_GET_Y").counter().count()).isZero();
+    }
 
-        var res = pipeline.run(ctx, List.of(defY));
+    @Test
+    @DisplayName("Profiler: every sampled application is recorded per PromotionDef with its discount; none when off")
+    void profilerSamplesPerDef() {
+        var profiler = new PromotionProfiler(1.0, Duration.ofMinutes(1), 2);
+        var profiled = new PromotionPipeline(List.of(percentRule, bogoRule), 0, new SimpleMeterRegistry(), profiler);
+        var a = def("A", 1, true);
+        var b = new PromotionDef(2L, PromotionType.PERCENT_OFF_CATEGORY, "B", 2, true, "ANY", BigDecimal.ONE, null, null, null);
+        when(percentRule.apply(any(), eq(a))).thenReturn(PromotionResult.of("percent", new BigDecimal("2.50")));
+        when(percentRule.apply(any(), eq(b))).thenReturn(PromotionResult.of("percent", BigDecimal.ZERO));
+
+        profiled.run(emptyCart(), List.of(a, b));
+        profiled.run(emptyCart(), List.of(a, b));
+
+        var stats = profiler.top(10);
+        assertThat(stats).extracting(s -> s.name()).containsExactlyInAnyOrder("A", "B");
+        assertThat(stats).allSatisfy(s -> assertThat(s.samples()).isEqualTo(2));
+        assertThat(stats).filteredOn(s -> s.name().equals("A")).singleElement()
+                .satisfies(s -> assertThat(s.avgDiscount()).isEqualByComparingTo("2.50"));
+        assertThat(profiler.top(1)).hasSize(1);
+
+        var off = PromotionProfiler.disabled();
+        new PromotionPipeline(List.of(percentRule, bogoRule), 0, new SimpleMeterRegistry(), off).run(emptyCart(), List.of(a));
+        assertThat(off.sample()).isFalse();
+        assertThat(off.top(10)).isEmpty();
+    }
 
-        verify(rule1).supports(eq(defY));
-        verify(rule2).apply(same(ctx), eq(defY));
+    @Test
+    @DisplayName("Startup fails fast when a PromotionType has no rule")
+    void missingRule_failsFast() {
+        var onlyPercent = ruleOf(PromotionType.PERCENT_OFF_CATEGORY);
 
-        assertThat(res.audit()).containsExactly("rule2->Y");
+        assertThatThrownBy(() -> new PromotionPipeline(List.of(onlyPercent)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("BUY_X_GET_Y");
     }
 
     @Test
-    @DisplayName("No rules support a def → no apply call; audit remains unchanged")
-    void noSupportingRules_noApply() {
-        var ctx = emptyCart();
-        ctx.audit("pre-existing");
+    @DisplayName("Startup fails fast when two rules claim the same PromotionType")
+    void ambiguousRules_failFast() {
+        var second = ruleOf(PromotionType.PERCENT_OFF_CATEGORY);
+
+        assertThatThrownBy(() -> new PromotionPipeline(List.of(percentRule, bogoRule, second)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Ambiguous")
+                .hasMessageContaining("PERCENT_OFF_CATEGORY");
+    }
 
-        var defZ = def("Z", 3, true);
+    @Test
+    @DisplayName("compile() binds each def once; run(snapshot) applies bound rules without re-resolving")
+    void compiledSnapshot_runsBoundRules() {
+        var defA = def("A", 1, true);
 
-        when(rule1.supports(eq(defZ))).thenReturn(false);
-        when(rule2.supports(eq(defZ))).thenReturn(false);
+        var snapshot = pipeline.compile(7L, List.of(defA, def("Off", 0, false)));
 
-        var res = pipeline.run(ctx, List.of(defZ));
+        assertThat(snapshot.version()).isEqualTo(7L);
+        assertThat(snapshot.defs()).containsExactly(defA);
+        assertThat(snapshot.promotions().get(0).rule()).isSameAs(percentRule);
 
-        verify(rule1).supports(eq(defZ));
-        verify(rule2).supports(eq(defZ));
-        verify(rule1, never()).apply(any(), any());
-        verify(rule2, never()).apply(any(), any());
+        var ctx1 = emptyCart();
+        var ctx2 = emptyCart();
+        pipeline.run(ctx1, snapshot);
+        pipeline.run(ctx2, snapshot);
 
-        assertThat(res.audit()).containsExactly("pre-existing");
-        assertThat(res.audit()).isSameAs(ctx.auditEntries());
+        verify(percentRule).apply(same(ctx1), eq(defA));
+        verify(percentRule).apply(same(ctx2), eq(defA));
+        verify(bogoRule, never()).apply(any(), any());
     }
 
     @Test
-    @DisplayName("Empty defs list → no rule interactions; returns current audit")
+    @DisplayName("Empty defs list → no rule applied; returns current audit")
     void emptyDefs_noops() {
         var ctx = emptyCart();
         ctx.audit("hello");
 
         var res = pipeline.run(ctx, List.of());
 
-        verifyNoInteractions(rule1, rule2);
+        verify(percentRule, never()).apply(any(), any());
+        verify(bogoRule, never()).apply(any(), any());
         assertThat(res.audit()).containsExactly("hello");
     }
 }
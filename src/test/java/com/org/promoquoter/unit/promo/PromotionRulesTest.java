@@ -4,11 +4,13 @@ import java.math.BigDecimal;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.AuditEvent;
 import com.org.promoquoter.promo.BuyXGetYRule;
 import com.org.promoquoter.promo.CartContext;
 import com.org.promoquoter.promo.CartLine;
@@ -213,4 +215,40 @@ class PromotionRulesTest {
             assertThat(tiny.getFinalSubtotal()).isEqualByComparingTo("1.33");
         }
     }
+
+    @Nested
+    @DisplayName("Audit events")
+    class AuditEvents {
+
+        @Test
+        @DisplayName("apply() → records structured events (type, promo id, line, cents); text is rendered on read")
+        void apply_recordsStructuredEvents() {
+            var soda = line(10L, "Soda", "DRINKS", 5, "1.25");
+            var ctx = cart(soda);
+
+            new BuyXGetYRule().apply(ctx, defBogo("Buy2Get1", 10L, 2, 1));
+            new PercentOffCategoryRule().apply(ctx, defPercent("Drinks 10%", "DRINKS", "10"));
+
+            assertThat(ctx.auditEvents())
+                    .extracting(AuditEvent::type, AuditEvent::promoId, AuditEvent::line, AuditEvent::discountCents)
+                    .containsExactly(
+                            tuple(PromotionType.BUY_X_GET_Y, 2L, soda, 125L),
+                            tuple(PromotionType.PERCENT_OFF_CATEGORY, 1L, soda, 63L));
+            assertThat(ctx.auditEntries())
+                    .containsExactly("BUY_2_GET_1 on Soda: free=1, -1.25", "PERCENT_OFF_CATEGORY(10%) on Soda: -0.63");
+        }
+
+        @Test
+        @DisplayName("audit off → discounts still applied, nothing recorded")
+        void auditOff_recordsNothing() {
+            var ctx = new CartContext(List.of(line(10L, "Soda", "DRINKS", 5, "1.25")), false);
+
+            new BuyXGetYRule().apply(ctx, defBogo("Buy2Get1", 10L, 2, 1));
+            ctx.audit("free text");
+
+            assertThat(ctx.lineByProduct(10L).getDiscount()).isEqualByComparingTo("1.25");
+            assertThat(ctx.auditEvents()).isEmpty();
+            assertThat(ctx.auditEntries()).isEmpty();
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package com.org.promoquoter.unit.promo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.org.promoquoter.entities.PromotionType;
+import com.org.promoquoter.promo.BuyXGetYRule;
+import com.org.promoquoter.promo.CartContext;
+import com.org.promoquoter.promo.CartLine;
+import com.org.promoquoter.promo.PercentOffCategoryRule;
+import com.org.promoquoter.promo.PromotionDef;
+import com.org.promoquoter.promo.PromotionPipeline;
+
+class PromotionSnapshotTest {
+
+    private final PromotionPipeline pipeline =
+            new PromotionPipeline(List.of(new PercentOffCategoryRule(), new BuyXGetYRule()));
+
+    // ---------- Helpers ----------
+
+    private PromotionDef percent(long id, int priority, String category, String percent) {
+        return new PromotionDef(id, PromotionType.PERCENT_OFF_CATEGORY, "P" + id, priority, true,
+                category, new BigDecimal(percent), null, null, null);
+    }
+
+    private PromotionDef bogo(long id, int priority, long productId, int buy, int free) {
+        return new PromotionDef(id, PromotionType.BUY_X_GET_Y, "B" + id, priority, true,
+                null, null, productId, buy, free);
+    }
+
+    private CartLine line(long pid, String category, int qty, String unitPrice) {
+        return new CartLine(pid, "Item" + pid, category, qty, new BigDecimal(unitPrice));
+    }
+
+    // ---------- Tests ----------
+
+    @Test
+    @DisplayName("candidates(): only promotions keyed on the cart's products/categories, in priority order")
+    void candidates_filteredAndOrdered() {
+        var snapshot = pipeline.compile(1L, List.of(
+                percent(1L, 5, "BOOKS", "10"),
+                bogo(2L, 1, 42L, 1, 1),
+                percent(3L, 3, "TOYS", "10"),
+                bogo(4L, 2, 99L, 1, 1),
+                percent(5L, 0, "BOOKS", "5")));
+
+        var ctx = new CartContext(List.of(line(42L, "BOOKS", 2, "3.00")));
+
+        assertThat(snapshot.candidates(ctx)).extracting(p -> p.def().id())
+                .containsExactly(5L, 2L, 1L);
+    }
+
+    @Test
+    @DisplayName("run(): indexed evaluation gives the same lines, audit and total as evaluating every promotion")
+    void indexedRun_matchesFullScan() {
+        var rnd = new Random(42);
+        var categories = List.of("A", "B", "C", "D");
+
+        List<PromotionDef> defs = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            defs.add(rnd.nextBoolean()
+                    ? percent(id, rnd.nextInt(50), categories.get(rnd.nextInt(4)), String.valueOf(rnd.nextInt(30)))
+                    : bogo(id, rnd.nextInt(50), 1 + rnd.nextInt(40), 1 + rnd.nextInt(3), 1));
+        }
+        var snapshot = pipeline.compile(1L, defs);
+
+        for (int cart = 0; cart < 50; cart++) {
+            List<CartLine> indexedLines = new ArrayList<>();
+            List<CartLine> fullLines = new ArrayList<>();
+            for (int i = 0; i < 1 + rnd.nextInt(8); i++) {
+                long pid = 1 + rnd.nextInt(40);
+                var cat = categories.get(rnd.nextInt(4));
+                int qty = 1 + rnd.nextInt(9);
+                var price = BigDecimal.valueOf(1 + rnd.nextInt(5000), 2).toPlainString();
+                indexedLines.add(line(pid, cat, qty, price));
+                fullLines.add(line(pid, cat, qty, price));
+            }
+
+            var indexed = new CartContext(indexedLines);
+            pipeline.run(indexed, snapshot);
+
+            var full = new CartContext(fullLines);
+            snapshot.promotions().forEach(p -> p.rule().apply(full, p.def()));
+
+            assertThat(indexed.auditEntries()).isEqualTo(full.auditEntries());
+            assertThat(indexed.total()).isEqualTo(full.total());
+            for (int i = 0; i < indexedLines.size(); i++) {
+                assertThat(indexedLines.get(i).getDiscount()).isEqualTo(fullLines.get(i).getDiscount());
+            }
+        }
+    }
+}
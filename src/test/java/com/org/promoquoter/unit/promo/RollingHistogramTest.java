@@ -0,0 +1,64 @@
+package com.org.promoquoter.unit.promo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.org.promoquoter.promo.RollingHistogram;
+
+class RollingHistogramTest {
+
+    private static final long WINDOW = 1_000;
+
+    @Test
+    @DisplayName("percentiles land within a bucket (25%) of the true value and never above the max")
+    void percentiles_withinBucketPrecision() {
+        var h = new RollingHistogram(WINDOW, 4);
+        for (int v = 1; v <= 1_000; v++) h.record(v * 1_000L, v, 0);
+
+        var s = h.snapshot(0);
+        assertThat(s.count()).isEqualTo(1_000);
+        assertThat(s.mean()).isCloseTo(500_500.0, within(0.5));
+        assertThat(s.max()).isEqualTo(1_000_000);
+        assertThat(s.valueSum()).isEqualTo(500_500);
+        assertThat(s.percentile(0.50)).isBetween(500_000L, 625_000L);
+        assertThat(s.percentile(0.99)).isBetween(990_000L, 1_000_000L);
+        assertThat(s.percentile(1.0)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    @DisplayName("samples age out once their window falls outside the rolling range")
+    void windows_ageOut() {
+        var h = new RollingHistogram(WINDOW, 3);
+        h.record(100, 0, 0);           // window 0
+        h.record(200, 0, WINDOW);      // window 1
+        h.record(300, 0, 3 * WINDOW);  // window 3 replaces window 0's slot
+
+        assertThat(h.snapshot(3 * WINDOW).count()).isEqualTo(2);
+        assertThat(h.snapshot(3 * WINDOW).max()).isEqualTo(300);
+        assertThat(h.snapshot(4 * WINDOW).count()).isEqualTo(1);
+        assertThat(h.snapshot(10 * WINDOW).count()).isZero();
+        assertThat(h.snapshot(10 * WINDOW).percentile(0.99)).isZero();
+    }
+
+    @Test
+    @DisplayName("concurrent writers within one window lose no samples")
+    void concurrentWriters_countEverySample() {
+        var h = new RollingHistogram(Long.MAX_VALUE, 2);
+        var writers = IntStream.range(0, 4)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 10_000; i++) h.record(i, 1, 0);
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(writers).join();
+
+        var s = h.snapshot(0);
+        assertThat(s.count()).isEqualTo(40_000);
+        assertThat(s.valueSum()).isEqualTo(40_000);
+        assertThat(s.max()).isEqualTo(9_999);
+    }
+}
@@ -0,0 +1,58 @@
+package com.org.promoquoter.unit.repositories;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.org.promoquoter.repositories.ProductStockRepositoryImpl;
+import com.org.promoquoter.repositories.StockReservation;
+
+@ExtendWith(MockitoExtension.class)
+class ProductStockRepositoryImplTest {
+
+    @Mock JdbcTemplate jdbc;
+
+    ProductStockRepositoryImpl repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = new ProductStockRepositoryImpl(jdbc);
+    }
+
+    private static List<StockReservation> reservations() {
+        return List.of(
+                new StockReservation(2L, 1, new BigDecimal("5.00"), "TOYS"),
+                new StockReservation(1L, 3, new BigDecimal("9.99"), "BOOKS"));
+    }
+
+    @Test
+    @DisplayName("reserveStock(): rows the batch did not move are reported in id order")
+    void reserveStock_missedRows_reported() {
+        when(jdbc.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 0, 1 });
+
+        assertThat(repo.reserveStock(reservations())).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("reserveStock(): SUCCESS_NO_INFO cannot confirm a reservation, so it fails closed")
+    void reserveStock_successNoInfo_failsClosed() {
+        when(jdbc.batchUpdate(anyString(), anyList())).thenReturn(new int[] { 1, Statement.SUCCESS_NO_INFO });
+
+        assertThatThrownBy(() -> repo.reserveStock(reservations()))
+                .isInstanceOf(JdbcUpdateAffectedIncorrectNumberOfRowsException.class);
+    }
+}
@@ -1,19 +1,27 @@
 package com.org.promoquoter.unit.services;
 import java.math.BigDecimal;
-import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Captor;
 import org.mockito.Mock;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -21,38 +29,53 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.org.promoquoter.catalog.ProductCatalog;
+import com.org.promoquoter.catalog.ProductView;
 import com.org.promoquoter.dto.cart.CartItem;
 import com.org.promoquoter.dto.cart.ConfirmRequest;
 import com.org.promoquoter.dto.cart.ConfirmResponse;
 import com.org.promoquoter.dto.cart.QuoteRequest;
 import com.org.promoquoter.dto.cart.QuoteResponse;
-import com.org.promoquoter.entities.IdempotencyRecord;
 import com.org.promoquoter.entities.Order;
-import com.org.promoquoter.entities.Product;
-import com.org.promoquoter.repositories.IdempotencyRepository;
+import com.org.promoquoter.exception.InsufficientStockException;
+import com.org.promoquoter.exception.PriceChangedException;
+import com.org.promoquoter.idempotency.IdempotencyStore;
+import com.org.promoquoter.idempotency.RequestHash;
+import com.org.promoquoter.inventory.StockLedger;
 import com.org.promoquoter.repositories.OrderRepository;
 import com.org.promoquoter.repositories.ProductRepository;
+import com.org.promoquoter.repositories.StockReservation;
 import com.org.promoquoter.services.OrderServiceImpl;
+import com.org.promoquoter.services.PricedQuote;
 import com.org.promoquoter.services.QuotationService;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class OrderServiceImplTest {
 
     @Mock ProductRepository productRepo;
     @Mock OrderRepository orderRepo;
-    @Mock IdempotencyRepository idemRepo;
+    @Mock IdempotencyStore idempotency;
     @Mock QuotationService pricingService;
+    @Mock ProductCatalog catalog;
+    @Mock StockLedger ledger;
+    @Mock PlatformTransactionManager txManager;
 
     @Captor ArgumentCaptor<QuoteRequest> quoteReqCaptor;
-    @Captor ArgumentCaptor<IdempotencyRecord> idemRecordCaptor;
-    @Captor ArgumentCaptor<Product> productCaptor;
+    @Captor ArgumentCaptor<List<StockReservation>> reserveCaptor;
 
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
     OrderServiceImpl service;
 
     @BeforeEach
     void setUp() {
-        service = new OrderServiceImpl(productRepo, orderRepo, idemRepo, pricingService);
+        service = new OrderServiceImpl(productRepo, orderRepo, idempotency, pricingService, catalog, ledger, txManager, registry);
+        // single-flight owner: just runs the work
+        lenient().when(idempotency.singleFlight(any(), any(), any()))
+                .thenAnswer(inv -> inv.getArgument(2, Supplier.class).get());
     }
 
     // ---------- Helpers ----------
@@ -65,16 +88,18 @@ class OrderServiceImplTest {
         return new CartItem(productId, qty);
     }
 
-    private QuoteResponse quote(BigDecimal total) {
-        return new QuoteResponse(List.of(), total, List.of(), List.of());
+    private ProductView view(long id, String name, String price, String category) {
+        return new ProductView(id, name, category, new BigDecimal(price), 0L);
     }
 
-    private Product product(long id, String name, int stock) {
-        return Product.builder().id(id).name(name).stock(stock).build();
+    private ProductView view(long id) {
+        return view(id, "P" + id, "10.00", "CAT");
     }
 
-    private Order order(String id, BigDecimal total) {
-        return Order.builder().id(id).total(total).build();
+    // Quote priced from the given product snapshot
+    private PricedQuote priced(BigDecimal total, ProductView... views) {
+        return new PricedQuote(new QuoteResponse(List.of(), total, List.of(), List.of()),
+                Arrays.stream(views).collect(Collectors.toMap(ProductView::id, Function.identity())));
     }
 
     // ---------- Tests ----------
@@ -86,15 +111,7 @@ class OrderServiceImplTest {
         String existingOrderId = "42";
         BigDecimal existingTotal = new BigDecimal("199.99");
 
-        when(idemRepo.findById(idemKey)).thenReturn(Optional.of(
-                IdempotencyRecord.builder()
-                        .idempotencyKey(idemKey)
-                        .orderId(existingOrderId)
-                        .createdAt(OffsetDateTime.now())
-                        .requestHash("NA")
-                        .build()
-        ));
-        when(orderRepo.findById(existingOrderId)).thenReturn(Optional.of(order(existingOrderId, existingTotal)));
+        when(idempotency.find(eq(idemKey), any())).thenReturn(Optional.of(new ConfirmResponse(existingOrderId, existingTotal)));
 
         ConfirmRequest request = req(List.of(li(10L, 1)), "REGULAR");
 
@@ -103,24 +120,33 @@ class OrderServiceImplTest {
         assertThat(resp.orderId()).isEqualTo(existingOrderId);
         assertThat(resp.total()).isEqualByComparingTo(existingTotal);
 
-        verifyNoInteractions(pricingService, productRepo);
-        verify(orderRepo).findById(existingOrderId);
-        verifyNoMoreInteractions(orderRepo);
+        verifyNoInteractions(pricingService, productRepo, orderRepo);
+        verify(idempotency, never()).record(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("confirm(): duplicate coalesced by single-flight → no quote, no stock, no transaction")
+    void confirm_concurrentDuplicate_waitsForOwner() {
+        var ownersResult = new ConfirmResponse("7", new BigDecimal("10.00"));
+        doReturn(ownersResult).when(idempotency).singleFlight(any(), any(), any());
+
+        ConfirmResponse resp = service.confirm(req(List.of(li(1L, 1)), "REGULAR"), "dup");
+
+        assertThat(resp).isSameAs(ownersResult);
+        verifyNoInteractions(pricingService, productRepo, orderRepo, ledger, txManager);
     }
 
     @Test
     @DisplayName("confirm(): idempotency MISS (with key) → quotes, reserves stock, saves order, saves idempotency record")
     void confirm_idempotencyMissWithKey_createsOrder_andSavesIdem() {
         String idemKey = "idem-456";
-        when(idemRepo.findById(idemKey)).thenReturn(Optional.empty());
+        when(idempotency.find(eq(idemKey), any())).thenReturn(Optional.empty());
 
         BigDecimal total = new BigDecimal("1200.00");
-        when(pricingService.quote(any(QuoteRequest.class))).thenReturn(quote(total));
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(total,
+                view(1L, "Laptop", "500.00", "ELECTRONICS"), view(2L, "Mouse", "80.00", "ELECTRONICS")));
 
-        Product p1 = product(1L, "Laptop", 5);
-        Product p2 = product(2L, "Mouse", 10);
-        when(productRepo.findById(1L)).thenReturn(Optional.of(p1));
-        when(productRepo.findById(2L)).thenReturn(Optional.of(p2));
+        when(productRepo.reserveStock(any())).thenReturn(List.of());
 
         when(orderRepo.save(any(Order.class))).thenAnswer(inv -> {
             Order o = inv.getArgument(0);
@@ -134,7 +160,7 @@ class OrderServiceImplTest {
         assertThat(resp.orderId()).isEqualTo("999");
         assertThat(resp.total()).isEqualByComparingTo(total);
 
-        verify(pricingService).quote(quoteReqCaptor.capture());
+        verify(pricingService).price(quoteReqCaptor.capture());
         QuoteRequest sentQ = quoteReqCaptor.getValue();
         assertThat(sentQ.customerSegment()).isEqualTo("VIP");
         assertThat(sentQ.items()).hasSize(2);
@@ -143,27 +169,28 @@ class OrderServiceImplTest {
         assertThat(sentQ.items().get(1).productId()).isEqualTo(2L);
         assertThat(sentQ.items().get(1).qty()).isEqualTo(3);
 
-        verify(productRepo, times(2)).save(productCaptor.capture());
-        List<Product> savedProducts = productCaptor.getAllValues();
-        assertThat(savedProducts.get(0).getId()).isEqualTo(1L);
-        assertThat(savedProducts.get(0).getStock()).isEqualTo(3);  // 5 - 2
-        assertThat(savedProducts.get(1).getId()).isEqualTo(2L);
-        assertThat(savedProducts.get(1).getStock()).isEqualTo(7);  // 10 - 3
+        // one batched reservation, guarded by the prices/categories that were quoted
+        verify(productRepo, times(1)).reserveStock(reserveCaptor.capture());
+        assertThat(reserveCaptor.getValue()).containsExactly(
+                new StockReservation(1L, 2, new BigDecimal("500.00"), "ELECTRONICS"),
+                new StockReservation(2L, 3, new BigDecimal("80.00"), "ELECTRONICS"));
+        verifyNoMoreInteractions(productRepo);
+        verifyNoInteractions(catalog);
+
+        verify(idempotency).record(idemKey, RequestHash.of(request), "999", total);
+        verify(txManager).commit(any()); // placed in its own transaction inside the single-flight
 
-        verify(idemRepo).save(idemRecordCaptor.capture());
-        IdempotencyRecord savedIdem = idemRecordCaptor.getValue();
-        assertThat(savedIdem.getIdempotencyKey()).isEqualTo(idemKey);
-        assertThat(savedIdem.getOrderId()).isEqualTo("999");
-        assertThat(savedIdem.getCreatedAt()).isNotNull();
+        for (var stage : List.of("idempotency_lookup", "quote", "reservation", "order_insert", "idempotency_insert")) {
+            assertThat(registry.get("promoquoter.confirm.stage").tag("stage", stage).timer().count()).as(stage).isEqualTo(1);
+        }
     }
 
     @Test
     @DisplayName("confirm(): no idempotency key → quotes, reserves stock, saves order, does NOT save idempotency record")
     void confirm_noIdemKey_createsOrder_withoutIdemRecord() {
-        when(pricingService.quote(any(QuoteRequest.class))).thenReturn(quote(new BigDecimal("250.50")));
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(new BigDecimal("250.50"), view(10L)));
 
-        Product p = product(10L, "Book", 4);
-        when(productRepo.findById(10L)).thenReturn(Optional.of(p));
+        when(productRepo.reserveStock(any())).thenReturn(List.of());
 
         when(orderRepo.save(any(Order.class))).thenAnswer(inv -> {
             Order o = inv.getArgument(0);
@@ -177,51 +204,121 @@ class OrderServiceImplTest {
         assertThat(resp.orderId()).isEqualTo("77");
         assertThat(resp.total()).isEqualByComparingTo("250.50");
 
-        verify(idemRepo, never()).save(any());
+        verify(idempotency, never()).record(any(), any(), any(), any());
     }
 
     @Test
-    @DisplayName("confirm(): insufficient stock → throws; no order/idempotency saved; no product save")
+    @DisplayName("confirm(): insufficient stock → throws naming every short product; no order/idempotency saved")
     void confirm_insufficientStock_throws() {
-        when(pricingService.quote(any(QuoteRequest.class))).thenReturn(quote(new BigDecimal("10.00")));
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(new BigDecimal("10.00"),
+                view(5L, "Cable", "2.00", "TECH"), view(6L, "Plug", "3.00", "TECH"), view(7L, "Lamp", "5.00", "HOME")));
+        when(productRepo.reserveStock(any())).thenReturn(List.of(5L, 7L));
+        when(productRepo.findRepriced(any())).thenReturn(List.of());
 
-        Product p = product(5L, "Cable", 1); // stock=1
-        when(productRepo.findById(5L)).thenReturn(Optional.of(p));
-
-        ConfirmRequest request = req(List.of(li(5L, 2)), "REGULAR"); // need 2, have 1
+        ConfirmRequest request = req(List.of(li(7L, 1), li(5L, 2), li(6L, 1)), "REGULAR");
 
         assertThatThrownBy(() -> service.confirm(request, "k"))
-                .isInstanceOf(RuntimeException.class)
-                .hasMessageContaining("Insufficient stock");
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessageContaining("Insufficient stock")
+                .hasMessageContaining("Cable, Lamp")
+                .satisfies(ex -> assertThat(((InsufficientStockException) ex).getProductIds()).containsExactly(5L, 7L));
 
         verify(orderRepo, never()).save(any());
-        verify(idemRepo, never()).save(any());
-        verify(productRepo, never()).save(any());
+        verify(idempotency, never()).record(any(), any(), any(), any());
+        verifyNoInteractions(catalog);
+        assertThat(registry.get("promoquoter.confirm.conflicts").tag("reason", "insufficient_stock").counter().count()).isEqualTo(1);
     }
 
     @Test
-    @DisplayName("confirm(): product not found → orElseThrow bubbles (NoSuchElementException)")
-    void confirm_productMissing_throws() {
-        when(pricingService.quote(any(QuoteRequest.class))).thenReturn(quote(new BigDecimal("10.00")));
-        when(productRepo.findById(111L)).thenReturn(Optional.empty());
+    @DisplayName("confirm(): product repriced between quote and reservation → PriceChangedException; stale views evicted")
+    void confirm_repricedAfterQuote_throwsPriceChanged() {
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(new BigDecimal("7.00"),
+                view(5L, "Cable", "2.00", "TECH"), view(7L, "Lamp", "5.00", "HOME")));
+        when(productRepo.reserveStock(any())).thenReturn(List.of(5L, 7L));
+        when(productRepo.findRepriced(any())).thenReturn(List.of(7L));
 
-        ConfirmRequest request = req(List.of(li(111L, 1)), "REGULAR");
+        ConfirmRequest request = req(List.of(li(5L, 1), li(7L, 1)), "REGULAR");
 
         assertThatThrownBy(() -> service.confirm(request, "k"))
-                .isInstanceOf(java.util.NoSuchElementException.class);
+                .isInstanceOf(PriceChangedException.class)
+                .hasMessage("Price changed for Lamp; please re-quote")
+                .satisfies(ex -> assertThat(((PriceChangedException) ex).getProductIds()).containsExactly(7L));
+
+        verify(productRepo).findRepriced(reserveCaptor.capture());
+        assertThat(reserveCaptor.getValue()).extracting(StockReservation::productId).containsExactly(5L, 7L);
+        verify(catalog).invalidate(List.of(7L));
+        verify(orderRepo, never()).save(any());
+        verify(idempotency, never()).record(any(), any(), any(), any());
+        assertThat(registry.get("promoquoter.confirm.conflicts").tag("reason", "price_changed").counter().count()).isEqualTo(1);
+        assertThat(registry.get("promoquoter.confirm.conflicts").tag("reason", "insufficient_stock").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("confirm(): ledger enabled → checks the committed price, admits in memory, never updates the product rows")
+    void confirm_ledgerEnabled_reservesInLedger() {
+        var mug = view(4L, "Mug", "8.00", "HOME");
+        var reservation = new StockReservation(4L, 2, new BigDecimal("8.00"), "HOME");
+        when(ledger.isEnabled()).thenReturn(true);
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(new BigDecimal("16.00"), mug));
+        when(productRepo.findRepriced(any())).thenReturn(List.of());
+        when(ledger.reserve(any())).thenReturn(List.of());
+        when(orderRepo.save(any(Order.class))).thenAnswer(inv -> Order.builder().id("5").build());
+
+        service.confirm(req(List.of(li(4L, 2)), "REGULAR"), null);
+
+        verify(productRepo).findRepriced(List.of(reservation));
+        verify(ledger).reserve(List.of(reservation));
+        verify(productRepo, never()).reserveStock(any());
+        verifyNoInteractions(catalog);
+    }
 
+    @Test
+    @DisplayName("confirm(): ledger enabled, short stock → InsufficientStockException; repriced → PriceChangedException")
+    void confirm_ledgerEnabled_rejections() {
+        var mug = view(4L, "Mug", "8.00", "HOME");
+        when(ledger.isEnabled()).thenReturn(true);
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(new BigDecimal("16.00"), mug));
+        // the second confirm finds the row repriced in the database behind the quote's catalog
+        when(productRepo.findRepriced(any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(4L));
+        when(ledger.reserve(any())).thenReturn(List.of(4L));
+
+        ConfirmRequest request = req(List.of(li(4L, 2)), "REGULAR");
+
+        assertThatThrownBy(() -> service.confirm(request, null))
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessage("Insufficient stock for Mug");
+        assertThatThrownBy(() -> service.confirm(request, null))
+                .isInstanceOf(PriceChangedException.class);
+
+        verify(ledger, times(1)).reserve(any());
+        verify(catalog).invalidate(List.of(4L));
         verify(orderRepo, never()).save(any());
-        verify(idemRepo, never()).save(any());
-        verify(productRepo, never()).save(any());
+        verify(productRepo, never()).reserveStock(any());
+    }
+
+    @Test
+    @DisplayName("confirm(): duplicate lines are merged and reserved in ascending product id order")
+    void confirm_mergesDuplicates_sortedById() {
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(new BigDecimal("10.00"), view(3L), view(9L)));
+        when(productRepo.reserveStock(any())).thenReturn(List.of());
+        when(orderRepo.save(any(Order.class))).thenAnswer(inv -> Order.builder().id("1").build());
+
+        service.confirm(req(List.of(li(9L, 1), li(3L, 2), li(9L, 4)), "REGULAR"), null);
+
+        verify(productRepo).reserveStock(reserveCaptor.capture());
+        assertThat(reserveCaptor.getValue())
+                .extracting(StockReservation::productId, StockReservation::qty)
+                .containsExactly(tuple(3L, 2), tuple(9L, 5));
     }
 
     @Test
     @DisplayName("confirm(): blank idempotency key is treated as absent (no idempotency record saved)")
     void confirm_blankIdemKey_treatedAsAbsent() {
-        when(pricingService.quote(any(QuoteRequest.class))).thenReturn(quote(new BigDecimal("55.00")));
+        when(pricingService.price(any(QuoteRequest.class))).thenReturn(priced(new BigDecimal("55.00"), view(9L)));
 
-        Product p = product(9L, "Pen", 3);
-        when(productRepo.findById(9L)).thenReturn(Optional.of(p));
+        when(productRepo.reserveStock(any())).thenReturn(List.of());
 
         when(orderRepo.save(any(Order.class))).thenAnswer(inv ->
                 Order.builder().id("501").total(inv.getArgument(0, Order.class).getTotal()).build()
@@ -232,6 +329,6 @@ class OrderServiceImplTest {
         ConfirmResponse resp = service.confirm(request, "   "); // blank
 
         assertThat(resp.orderId()).isEqualTo("501");
-        verify(idemRepo, never()).save(any());
+        verify(idempotency, never()).record(any(), any(), any(), any());
     }
 }
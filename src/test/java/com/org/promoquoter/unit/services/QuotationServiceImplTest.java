@@ -1,7 +1,13 @@
 package com.org.promoquoter.unit.services;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -12,48 +18,60 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyIterable;
-import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.same;
 import org.mockito.Captor;
 import org.mockito.Mock;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.org.promoquoter.catalog.ProductCatalog;
+import com.org.promoquoter.dto.cart.BatchQuoteRequest;
+import com.org.promoquoter.dto.cart.BatchQuoteResponse;
 import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.QuoteField;
 import com.org.promoquoter.dto.cart.QuoteItemResponse;
 import com.org.promoquoter.dto.cart.QuoteRequest;
 import com.org.promoquoter.entities.Product;
-import com.org.promoquoter.entities.Promotion;
 import com.org.promoquoter.entities.PromotionType;
 import com.org.promoquoter.promo.CartContext;
 import com.org.promoquoter.promo.CartLine;
+import com.org.promoquoter.promo.PromotionCatalog;
 import com.org.promoquoter.promo.PromotionDef;
-import com.org.promoquoter.promo.PromotionFactory;
 import com.org.promoquoter.promo.PromotionPipeline;
+import com.org.promoquoter.promo.PromotionRule;
+import com.org.promoquoter.promo.PromotionSnapshot;
+import com.org.promoquoter.promo.PromotionSnapshot.BoundPromotion;
 import com.org.promoquoter.repositories.ProductRepository;
-import com.org.promoquoter.repositories.PromotionRepository;
 import com.org.promoquoter.services.QuotationServiceImpl;
+import com.org.promoquoter.services.QuoteCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 
 @ExtendWith(MockitoExtension.class)
 class QuotationServiceImplTest {
 
     @Mock ProductRepository productRepo;
-    @Mock PromotionRepository promoRepo;
+    @Mock PromotionCatalog catalog;
     @Mock PromotionPipeline pipeline;
-    @Mock PromotionFactory factory;
+    @Mock PromotionRule rule;
 
     @Captor ArgumentCaptor<Iterable<Long>> idsCaptor;
     @Captor ArgumentCaptor<CartContext> ctxCaptor;
-    @Captor ArgumentCaptor<List<PromotionDef>> defsCaptor;
+    @Captor ArgumentCaptor<PromotionSnapshot> snapshotCaptor;
 
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
     QuotationServiceImpl service;
 
     @BeforeEach
     void setUp() {
-        service = new QuotationServiceImpl(productRepo, promoRepo, factory, pipeline);
+        service = new QuotationServiceImpl(new ProductCatalog(productRepo, 1_000, Duration.ofMinutes(10)), catalog, pipeline,
+                new QuoteCache(true, 1 << 20, Duration.ofMinutes(10)), validator, registry);
     }
 
     // ----------------- Helpers -----------------
@@ -80,8 +98,116 @@ class QuotationServiceImplTest {
                 BigDecimal.ZERO, null, null, null);
     }
 
+    private PromotionSnapshot snapshot(PromotionDef... defs) {
+        return new PromotionSnapshot(1L, Arrays.stream(defs).map(d -> new BoundPromotion(d, rule)).toList());
+    }
+
     // ----------------- Tests -----------------
 
+    @Test
+    @DisplayName("quoteBatch(): an invalid cart gets its own validation error; the other carts are still priced")
+    void quoteBatch_invalidCart_perCartError() {
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(1L, "P1", "2.00")));
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
+                .thenAnswer(inv -> new PromotionPipeline.PipelineResult(List.of()));
+
+        var carts = Arrays.asList(
+                req(List.of(li(1L, 2))),
+                new QuoteRequest(List.of(), " "),
+                null,
+                req(List.of(li(1L, 0))));
+
+        var res = service.quoteBatch(new BatchQuoteRequest(carts), QuoteField.ALL);
+
+        assertThat(res.results()).extracting(BatchQuoteResponse.Result::index).containsExactly(0, 1, 2, 3);
+        assertThat(res.results().get(0).quote().total()).isEqualByComparingTo("4.00");
+        assertThat(res.results().get(1).error()).isEqualTo("customerSegment: must not be blank, items: must not be empty");
+        assertThat(res.results().get(2).error()).isEqualTo("cart: must not be null");
+        assertThat(res.results().get(3).error()).isEqualTo("items[0].qty: must be greater than 0");
+        verify(productRepo, times(1)).findAllById(idsCaptor.capture());
+        assertThat(idsCaptor.getValue()).containsExactly(1L); // invalid carts load nothing
+    }
+
+    @Test
+    @DisplayName("quoteBatch(): one product load and one snapshot for all carts; per-cart errors, results in order")
+    void quoteBatch_sharedLoads_perCartErrors() {
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(1L, "P1", "2.00"), product(2L, "P2", "3.00")));
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
+                .thenAnswer(inv -> new PromotionPipeline.PipelineResult(List.of()));
+
+        var carts = new ArrayList<QuoteRequest>();
+        for (int i = 0; i < 20; i++) {
+            carts.add(i == 7 ? req(List.of(li(1L, 1), li(99L, 1))) : req(List.of(li(1L, i + 1), li(2L, 1))));
+        }
+
+        var res = service.quoteBatch(new BatchQuoteRequest(carts), QuoteField.ALL);
+
+        assertThat(res.results()).hasSize(20);
+        for (int i = 0; i < 20; i++) {
+            var r = res.results().get(i);
+            assertThat(r.index()).isEqualTo(i);
+            if (i == 7) {
+                assertThat(r.quote()).isNull();
+                assertThat(r.error()).isEqualTo("Product not found: 99");
+            } else {
+                assertThat(r.error()).isNull();
+                assertThat(r.quote().total()).isEqualByComparingTo(new BigDecimal(2 * (i + 1) + 3));
+            }
+        }
+        verify(productRepo, times(1)).findAllById(idsCaptor.capture());
+        assertThat(idsCaptor.getValue()).containsExactlyInAnyOrder(1L, 2L, 99L);
+        verify(catalog, times(1)).current();
+    }
+
+    @Test
+    @DisplayName("quoteStream(): chunks are priced in order against one snapshot; products load once across chunks")
+    void quoteStream_chunked_sharedLookups() {
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(1L, "P1", "2.00")));
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
+                .thenAnswer(inv -> new PromotionPipeline.PipelineResult(List.of()));
+
+        int n = 600; // spans three chunks
+        Iterator<QuoteRequest> source = new Iterator<>() {
+            int next;
+            @Override public boolean hasNext() { return next < n; }
+            @Override public QuoteRequest next() {
+                int i = next++;
+                if (i == 300) throw new IllegalArgumentException("Unreadable cart: bad line");
+                return req(List.of(li(1L, i + 1)));
+            }
+        };
+        var results = new ArrayList<BatchQuoteResponse.Result>();
+
+        assertThat(service.quoteStream(source, QuoteField.ALL, results::add)).isEqualTo(n);
+
+        assertThat(results).extracting(BatchQuoteResponse.Result::index)
+                .containsExactlyElementsOf(IntStream.range(0, n).boxed().toList());
+        assertThat(results.get(300).error()).isEqualTo("Unreadable cart: bad line");
+        assertThat(results.get(599).quote().total()).isEqualByComparingTo("1200.00");
+        verify(productRepo, times(1)).findAllById(anyIterable());
+        verify(catalog, times(1)).current();
+    }
+
+    @Test
+    @DisplayName("price(): returns the quote together with the product views it was priced from")
+    void price_returnsProductSnapshot() {
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(1L, "P1", "19.99"), product(2L, "P2", "5.50")));
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
+                .thenAnswer(inv -> new PromotionPipeline.PipelineResult(List.of()));
+
+        var priced = service.price(req(List.of(li(1L, 1), li(2L, 2), li(1L, 1))));
+
+        assertThat(priced.quote().total()).isEqualByComparingTo("50.98");
+        assertThat(priced.products()).containsOnlyKeys(1L, 2L);
+        assertThat(priced.products().get(1L).price()).isEqualByComparingTo("19.99");
+        assertThat(priced.products().get(2L).category()).isEqualTo("DEFAULT");
+        assertThat(priced.products().get(2L).version()).isZero();
+    }
+
     @Test
     @DisplayName("quote(): happy path with NO promotions → maps lines, totals correctly, no audit")
     void quote_happy_noPromotions() {
@@ -91,10 +217,10 @@ class QuotationServiceImplTest {
         when(productRepo.findAllById(anyIterable())).thenReturn(List.of(p1, p2));
 
         // no promotions
-        when(promoRepo.findAll()).thenReturn(List.of());
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
 
         // pipeline returns audit as-is and doesn't touch discounts
-        when(pipeline.run(any(CartContext.class), anyList()))
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
                 .thenAnswer(inv -> {
                     CartContext ctx = inv.getArgument(0);
                     return new PromotionPipeline.PipelineResult(ctx.auditEntries());
@@ -133,25 +259,21 @@ class QuotationServiceImplTest {
         assertThat(res.auditTrail()).isEmpty();
 
         // verify pipeline invoked
-        verify(pipeline).run(any(CartContext.class), argThat(List::isEmpty));
+        verify(pipeline).run(any(CartContext.class), same(PromotionSnapshot.EMPTY));
     }
 
     @Test
-    @DisplayName("quote(): promotions present → factory mapping, pipeline applies discounts + audit, appliedPromotions returned")
+    @DisplayName("quote(): promotions present → snapshot from catalog, pipeline applies discounts + audit, appliedPromotions returned")
     void quote_promotions_pipelineAppliesDiscounts_andAudit() {
         var p1 = product(1L, "Laptop", "1000.00");
         var p2 = product(2L, "Mouse", "25.00");
         when(productRepo.findAllById(anyIterable())).thenReturn(List.of(p1, p2));
 
-        // Entities from repo -> mapped via factory to defs
-        Promotion e1 = mock(Promotion.class);
-        Promotion e2 = mock(Promotion.class);
-        when(promoRepo.findAll()).thenReturn(List.of(e1, e2));
-        when(factory.fromEntity(e1)).thenReturn(def(10L, "PromoA"));
-        when(factory.fromEntity(e2)).thenReturn(def(20L, "PromoB"));
+        // Current snapshot from the catalog (already compiled)
+        when(catalog.current()).thenReturn(snapshot(def(10L, "PromoA"), def(20L, "PromoB")));
 
         // pipeline mutates context: add discounts & audit
-        when(pipeline.run(any(CartContext.class), anyList()))
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
                 .thenAnswer(inv -> {
                     CartContext ctx = inv.getArgument(0);
                     CartLine laptop = ctx.lineByProduct(1L);
@@ -164,9 +286,9 @@ class QuotationServiceImplTest {
 
         var res = service.quote(req(List.of(li(1L, 1), li(2L, 1))));
 
-        // verify pipeline received defs mapped by factory
-        verify(pipeline).run(ctxCaptor.capture(), defsCaptor.capture());
-        List<PromotionDef> passedDefs = defsCaptor.getValue();
+        // verify pipeline received the catalog snapshot
+        verify(pipeline).run(ctxCaptor.capture(), snapshotCaptor.capture());
+        List<PromotionDef> passedDefs = snapshotCaptor.getValue().defs();
         assertThat(passedDefs).extracting(PromotionDef::name).containsExactly("PromoA", "PromoB");
 
         // item subtotals reflect discounts
@@ -184,18 +306,44 @@ class QuotationServiceImplTest {
         // total from ctx.total()
         assertThat(res.total()).isEqualByComparingTo("900.00");
 
-        // applied promotions from defs
+        // applied promotions from snapshot defs
         assertThat(res.appliedPromotions()).containsExactly("PromoA", "PromoB");
 
         // audit trail from pipeline
         assertThat(res.auditTrail()).containsExactly("Applied 10% off and free mouse");
     }
 
+    @Test
+    @DisplayName("quote(fields=total) and price(): only the total is built; no audit is collected")
+    void quote_projection_buildsOnlyRequestedSections() {
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(1L, "P1", "10.00")));
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
+                .thenAnswer(inv -> {
+                    CartContext ctx = inv.getArgument(0);
+                    ctx.audit("should not be kept");
+                    return new PromotionPipeline.PipelineResult(ctx.auditEntries());
+                });
+
+        var quoted = service.quote(req(List.of(li(1L, 1))), EnumSet.of(QuoteField.TOTAL));
+        var priced = service.price(req(List.of(li(1L, 1))));
+
+        for (var q : List.of(quoted, priced.quote())) {
+            assertThat(q.total()).isEqualByComparingTo("10.00");
+            assertThat(q.items()).isNull();
+            assertThat(q.appliedPromotions()).isNull();
+            assertThat(q.auditTrail()).isNull();
+        }
+        verify(pipeline, times(2)).run(ctxCaptor.capture(), any(PromotionSnapshot.class));
+        assertThat(ctxCaptor.getAllValues()).noneMatch(CartContext::auditEnabled);
+    }
+
     @Test
     @DisplayName("quote(): product in request not found in repository → IllegalArgumentException with product id")
     void quote_missingProduct_throws() {
         var p1 = product(1L, "P1", "10.00");
         when(productRepo.findAllById(anyIterable())).thenReturn(List.of(p1)); // id 2 missing
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
 
         var ex = catchThrowable(() ->
             service.quote(req(List.of(li(1L, 1), li(2L, 1))))
@@ -215,8 +363,8 @@ class QuotationServiceImplTest {
         var p1 = product(1L, "Soda", "1.25");
         when(productRepo.findAllById(anyIterable())).thenReturn(List.of(p1));
 
-        when(promoRepo.findAll()).thenReturn(List.of());
-        when(pipeline.run(any(CartContext.class), anyList()))
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
                 .thenAnswer(inv -> new PromotionPipeline.PipelineResult(((CartContext) inv.getArgument(0)).auditEntries()));
 
         // same product twice with different qty
@@ -237,8 +385,8 @@ class QuotationServiceImplTest {
         // Price 0.333 * qty 3 = 0.999 → final should be 1.00 after rounding
         var p = product(1L, "Tiny", "0.333");
         when(productRepo.findAllById(anyIterable())).thenReturn(List.of(p));
-        when(promoRepo.findAll()).thenReturn(List.of());
-        when(pipeline.run(any(CartContext.class), anyList()))
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
                 .thenAnswer(inv -> new PromotionPipeline.PipelineResult(((CartContext)inv.getArgument(0)).auditEntries()));
 
         var res = service.quote(req(List.of(li(1L, 3))));
@@ -246,9 +394,53 @@ class QuotationServiceImplTest {
         assertThat(res.items().get(0).finalSubtotal()).isEqualByComparingTo("1.00");
         assertThat(res.total()).isEqualByComparingTo("1.00");
     }
-}
 
+    @Test
+    @DisplayName("quote(): product views are served from the near-cache on repeat quotes")
+    void quote_repeat_hitsProductCache() {
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(product(1L, "P1", "2.00")));
+        when(catalog.current()).thenReturn(PromotionSnapshot.EMPTY);
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
+                .thenAnswer(inv -> new PromotionPipeline.PipelineResult(((CartContext) inv.getArgument(0)).auditEntries()));
 
+        service.quote(req(List.of(li(1L, 1))));
+        var res = service.quote(req(List.of(li(1L, 2))));
 
+        assertThat(res.total()).isEqualByComparingTo("4.00");
+        verify(productRepo, times(1)).findAllById(anyIterable());
+    }
 
+    @Test
+    @DisplayName("quote(): a repeated cart is served from the quote cache until the snapshot or a product version changes")
+    void quote_repeat_servedFromQuoteCache_untilVersionsChange() {
+        var productCatalog = new ProductCatalog(productRepo, 1_000, Duration.ofMinutes(10));
+        service = new QuotationServiceImpl(productCatalog, catalog, pipeline, new QuoteCache(true, 1 << 20, Duration.ofMinutes(10)), validator, registry);
+        var p1 = product(1L, "P1", "2.00");
+        when(productRepo.findAllById(anyIterable())).thenReturn(List.of(p1));
+        when(catalog.current()).thenReturn(snapshot(def(10L, "Promo A")));
+        when(pipeline.run(any(CartContext.class), any(PromotionSnapshot.class)))
+                .thenAnswer(inv -> new PromotionPipeline.PipelineResult(((CartContext) inv.getArgument(0)).auditEntries()));
 
+        var first = service.quote(req(List.of(li(1L, 3))));
+        assertThat(service.quote(req(List.of(li(1L, 3))))).isSameAs(first);
+        verify(pipeline, times(1)).run(any(CartContext.class), any(PromotionSnapshot.class));
+
+        // new promotion snapshot: the old entry is unreachable
+        when(catalog.current()).thenReturn(new PromotionSnapshot(2L, List.of()));
+        var afterPublish = service.quote(req(List.of(li(1L, 3))));
+        assertThat(afterPublish.appliedPromotions()).isEmpty();
+        verify(pipeline, times(2)).run(any(CartContext.class), any(PromotionSnapshot.class));
+
+        // a newer product row seen elsewhere (e.g. a price update) refreshes the view: the entry no longer validates
+        var repriced = product(1L, "P1", "5.00");
+        repriced.setVersion(1L);
+        productCatalog.observe(repriced);
+        assertThat(service.quote(req(List.of(li(1L, 3)))).total()).isEqualByComparingTo("15.00");
+        verify(pipeline, times(3)).run(any(CartContext.class), any(PromotionSnapshot.class));
+
+        // every quote loads products and looks up the cache; only misses reach the pipeline
+        assertThat(registry.get("promoquoter.quote.stage").tag("stage", "products").timer().count()).isEqualTo(4);
+        assertThat(registry.get("promoquoter.quote.stage").tag("stage", "cache").timer().count()).isEqualTo(4);
+        assertThat(registry.get("promoquoter.quote.stage").tag("stage", "pipeline").timer().count()).isEqualTo(3);
+    }
+}
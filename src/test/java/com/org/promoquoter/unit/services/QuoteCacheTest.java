@@ -0,0 +1,96 @@
+package com.org.promoquoter.unit.services;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.org.promoquoter.catalog.ProductView;
+import com.org.promoquoter.dto.cart.CartItem;
+import com.org.promoquoter.dto.cart.QuoteField;
+import com.org.promoquoter.dto.cart.QuoteRequest;
+import com.org.promoquoter.dto.cart.QuoteResponse;
+import com.org.promoquoter.services.QuoteCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class QuoteCacheTest {
+
+    private final QuoteCache cache = new QuoteCache(true, 1 << 20, Duration.ofMinutes(10));
+
+    private static final Map<Long, ProductView> PRODUCTS = Map.of(
+            1L, view(1L, 0L),
+            2L, view(2L, 0L));
+
+    private static ProductView view(long id, long version) {
+        return new ProductView(id, "P" + id, "DEFAULT", new BigDecimal("1.00"), version);
+    }
+
+    private static QuoteRequest cart(CartItem... items) {
+        return new QuoteRequest(List.of(items), "REGULAR");
+    }
+
+    private static QuoteResponse total(String total) {
+        return new QuoteResponse(null, new BigDecimal(total), null, null);
+    }
+
+    @Test
+    @DisplayName("key(): total-only carts hit regardless of line order; item/audit projections keep request order")
+    void key_canonicalOrder_onlyWhenOrderIrrelevant() {
+        var ab = cart(new CartItem(1L, 2), new CartItem(2L, 1));
+        var ba = cart(new CartItem(2L, 1), new CartItem(1L, 2));
+        var totalOnly = EnumSet.of(QuoteField.TOTAL);
+
+        assertThat(cache.key(ab, totalOnly, 1L)).isEqualTo(cache.key(ba, totalOnly, 1L));
+        assertThat(cache.key(ab, QuoteField.ALL, 1L)).isNotEqualTo(cache.key(ba, QuoteField.ALL, 1L));
+        assertThat(cache.key(ab, totalOnly, 1L)).isNotEqualTo(cache.key(ab, QuoteField.ALL, 1L));
+        assertThat(cache.key(ab, totalOnly, 1L)).isNotEqualTo(cache.key(ab, totalOnly, 2L));
+        assertThat(cache.key(ab, totalOnly, 1L))
+                .isNotEqualTo(cache.key(new QuoteRequest(ab.items(), "VIP"), totalOnly, 1L));
+    }
+
+    @Test
+    @DisplayName("key(): a cart naming a product twice is not cacheable; nor is anything when disabled")
+    void key_duplicateProduct_orDisabled_isNull() {
+        assertThat(cache.key(cart(new CartItem(1L, 2), new CartItem(1L, 3)), QuoteField.ALL, 1L)).isNull();
+
+        var disabled = new QuoteCache(false, 1 << 20, Duration.ofMinutes(10));
+        assertThat(disabled.key(cart(new CartItem(1L, 2)), QuoteField.ALL, 1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("get(): hits while every product version matches; a changed version is a miss and drops the entry")
+    void get_validatesProductVersions() {
+        var key = cache.key(cart(new CartItem(1L, 2), new CartItem(2L, 1)), QuoteField.ALL, 1L);
+        var response = total("3.00");
+        cache.put(key, PRODUCTS, response);
+
+        assertThat(cache.get(key, PRODUCTS)).isSameAs(response);
+
+        var bumped = Map.of(1L, view(1L, 0L), 2L, view(2L, 1L));
+        assertThat(cache.get(key, bumped)).isNull();
+        assertThat(cache.get(key, PRODUCTS)).isNull(); // evicted, not resurrected
+    }
+
+    @Test
+    @DisplayName("bindTo(): hit/miss counts and the weighted size are published under cache=quotes")
+    void bindTo_publishesHitMissMetrics() {
+        var registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        var key = cache.key(cart(new CartItem(1L, 1)), QuoteField.ALL, 1L);
+
+        cache.get(key, PRODUCTS);
+        cache.put(key, PRODUCTS, total("1.00"));
+        cache.get(key, PRODUCTS);
+        cache.get(key, PRODUCTS);
+
+        assertThat(registry.get("cache.gets").tags("cache", "quotes", "result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tags("cache", "quotes", "result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tags("cache", "quotes").gauge().value()).isEqualTo(1);
+    }
+}